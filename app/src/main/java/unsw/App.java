@@ -4,11 +4,34 @@ import spark.Request;
 import static spark.Spark.*;
 
 import unsw.exceptions.UNSWException;
+import unsw.persistence.Command;
+import unsw.persistence.CommandJournal;
+import unsw.persistence.ImportReport;
+import unsw.persistence.NetworkImporter;
+import unsw.trains.NetworkView;
+import unsw.trains.SimulationJob;
 import unsw.trains.TrainsController;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -24,9 +47,79 @@ import scintilla.Scintilla;
 import spark.Response;
 
 public class App {
+    /**
+     * System property naming the directory that snapshots and the command journal are kept in.
+     */
+    private static final String DATA_DIRECTORY_PROPERTY = "trains.dataDir";
+
+    /**
+     * System property naming a network definition file to import when starting with no stations.
+     */
+    private static final String SEED_NETWORK_PROPERTY = "trains.seedNetwork";
+
+    /**
+     * How often a long simulation publishes a new view of the network for readers.
+     */
+    private static final long VIEW_PUBLISH_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+
     private static TrainsController tc = new TrainsController();
+    private static CommandJournal journal;
+
+    /**
+     * Held while changing the simulation. Reads never wait for it: they are served from the last
+     * published view. Single commands publish a view only when one is due (see
+     * {@link #publishViewIfDue}), so a burst of commands costs no more than the commands themselves.
+     * A read that finds the view out of date captures a new one if the lock is free, and otherwise
+     * is served the last view.
+     */
+    private static final ReentrantLock writeLock = new ReentrantLock();
+    private static volatile long changeCount;
+    private static volatile NetworkView view = NetworkView.capture(tc, 0);
+
+    /**
+     * When the last view was published, and how long to wait before publishing another part way
+     * through a simulation. Guarded by {@link #writeLock}.
+     */
+    private static long lastPublishedNanos;
+    private static long publishIntervalNanos = VIEW_PUBLISH_INTERVAL_NANOS;
+
+    /**
+     * Number of finished background simulations kept so that their results can still be fetched.
+     */
+    private static final int MAX_FINISHED_JOBS = 100;
+
+    /**
+     * Simulations run in the background, and the thread that runs them one at a time. Once more
+     * than {@link #MAX_FINISHED_JOBS} have finished, the oldest finished jobs are forgotten.
+     */
+    private static final Map<String, SimulationJob> simulationJobs = new ConcurrentHashMap<>();
+    private static final Deque<String> finishedJobIds = new ArrayDeque<>(); // Only used by the runner
+    private static final AtomicLong nextJobNumber = new AtomicLong(1);
+    private static final ExecutorService simulationJobRunner = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simulation-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public static void main(String[] args) throws IOException {
+        // Rebuild whatever was created before the last shutdown or crash, then checkpoint so
+        // the next start only replays what happens from here on
+        journal = CommandJournal.open(Path.of(System.getProperty(DATA_DIRECTORY_PROPERTY, "data")));
+        tc = journal.recover();
+        String seedNetwork = System.getProperty(SEED_NETWORK_PROPERTY);
+        if (seedNetwork != null && tc.listStationIds().isEmpty()) {
+            Path seedPath = Path.of(seedNetwork);
+            try (Reader definition = Files.newBufferedReader(seedPath, StandardCharsets.UTF_8)) {
+                ImportReport report = App.importNetwork(tc, definition, seedNetwork.endsWith(".csv"));
+                System.out.println("Imported " + seedPath + ": " + report.getStationsCreated() + " stations, "
+                        + report.getTracksCreated() + " tracks, " + report.getTrainsCreated() + " trains, "
+                        + report.getErrorCount() + " errors");
+                report.getErrors().forEach(System.err::println);
+            }
+        }
+        journal.checkpoint(tc);
+        view = NetworkView.capture(tc, changeCount);
 
-    public static void main(String[] args) {
         Scintilla.initialize();
         GsonBuilder gsonBuilder = new GsonBuilder();
         Gson gson = gsonBuilder.create();
@@ -54,6 +147,7 @@ public class App {
         trackRoutes(gson);
         cargoRoutes(gson);
         passengerRoutes(gson);
+        networkRoutes(gson);
         miscRoutes(gson);
 
         Scintilla.start();
@@ -94,25 +188,201 @@ public class App {
         return tc;
     }
 
+    /**
+     * Returns a view of the network, without waiting for changes under way. If the network has
+     * changed since the last view was published and no writer holds the lock, a new view is
+     * captured first.
+     */
+    private static NetworkView getView() {
+        if (view.getVersion() != changeCount && writeLock.tryLock()) {
+            try {
+                App.captureView(tc);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Publishes a view after a change, unless another writer is waiting to make a change and will
+     * publish one itself. Must be called holding the write lock, just before releasing it.
+     */
+    private static void publishView(TrainsController tc) {
+        if (!writeLock.hasQueuedThreads()) {
+            App.captureView(tc);
+        }
+    }
+
+    /**
+     * Publishes a view part way through a simulation, if {@link #VIEW_PUBLISH_INTERVAL_NANOS} has
+     * passed since the last one, or longer if capturing a view takes long enough to slow the
+     * simulation down. Must be called holding the write lock.
+     */
+    private static void publishViewIfDue(TrainsController tc) {
+        if (System.nanoTime() - lastPublishedNanos >= publishIntervalNanos) {
+            App.captureView(tc);
+        }
+    }
+
+    private static void captureView(TrainsController tc) {
+        if (view.getVersion() == changeCount)
+            return;
+
+        long start = System.nanoTime();
+        view = NetworkView.capture(tc, changeCount);
+        lastPublishedNanos = System.nanoTime();
+        publishIntervalNanos = Math.max(VIEW_PUBLISH_INTERVAL_NANOS, 4 * (lastPublishedNanos - start));
+    }
+
+    /**
+     * Journals a command and applies it, holding the write lock so that commands are journaled
+     * in the order they are applied. A new view is published only if one is due; otherwise the
+     * next read captures it. Waits for the command to reach disk only after releasing
+     * the lock, so that concurrent requests share a single fsync.
+     */
+    private static void execute(TrainsController tc, Command command) throws Exception {
+        CompletableFuture<Void> durable;
+        writeLock.lock();
+        try {
+            durable = journal.append(command);
+            command.applyTo(tc);
+        } finally {
+            changeCount++;
+            App.publishViewIfDue(tc);
+            writeLock.unlock();
+        }
+        durable.join();
+    }
+
+    /**
+     * Journals and runs a simulation, holding the write lock throughout. The simulation is run
+     * as a {@link SimulationJob} on the calling thread, so it is sliced the same way as a
+     * background one, and a new view is published between slices whenever one is due (see
+     * {@link #publishViewIfDue}). Running in slices gives the same results as a single call.
+     */
+    private static void executeSimulate(TrainsController tc, int length) {
+        SimulationJob job = new SimulationJob("sync", length, 0);
+        CompletableFuture<Void> durable;
+        writeLock.lock();
+        try {
+            durable = journal.append(Command.simulate(length));
+            job.run(minutes -> {
+                tc.simulate(minutes);
+                changeCount++;
+                App.publishViewIfDue(tc);
+            });
+        } finally {
+            changeCount++;
+            App.publishView(tc);
+            writeLock.unlock();
+        }
+        durable.join();
+        if (job.getFailure() != null) {
+            throw job.getFailure();
+        }
+    }
+
+    /**
+     * Queues a simulation to run in the background. Each slice of the job is journaled and run
+     * holding the write lock, which is released in between so that other requests are not held
+     * up, and readers see the job's progress.
+     */
+    private static SimulationJob submitSimulation(TrainsController tc, int length, long budgetMillis) {
+        SimulationJob job = new SimulationJob("job" + nextJobNumber.getAndIncrement(), length, budgetMillis);
+        simulationJobs.put(job.getJobId(), job);
+        simulationJobRunner.execute(() -> {
+            job.run(minutes -> {
+                CompletableFuture<Void> durable;
+                writeLock.lock();
+                try {
+                    durable = journal.append(Command.simulate(minutes));
+                    tc.simulate(minutes);
+                } finally {
+                    changeCount++;
+                    App.publishViewIfDue(tc);
+                    writeLock.unlock();
+                }
+                durable.join();
+            });
+
+            // Show where the job stopped, however recently a view was published
+            writeLock.lock();
+            try {
+                App.publishView(tc);
+            } finally {
+                writeLock.unlock();
+            }
+
+            finishedJobIds.addLast(job.getJobId());
+            while (finishedJobIds.size() > MAX_FINISHED_JOBS) {
+                simulationJobs.remove(finishedJobIds.removeFirst());
+            }
+        });
+        return job;
+    }
+
+    private static SimulationJob getSimulationJob(Request request) throws UNSWException {
+        SimulationJob job = simulationJobs.get(request.params(":jobId"));
+        if (job == null) {
+            throw new UNSWException("Simulation job not found: " + request.params(":jobId"), "unknown", 404);
+        }
+        return job;
+    }
+
+    private static JsonObject describeSimulationJob(SimulationJob job) {
+        JsonObject description = new JsonObject();
+        description.addProperty("jobId", job.getJobId());
+        description.addProperty("state", job.getState().toString());
+        description.addProperty("length", job.getLength());
+        description.addProperty("currentTick", job.getMinutesSimulated());
+        description.addProperty("ticksPerSecond", job.getTicksPerSecond());
+        description.addProperty("elapsedMillis", job.getElapsedMillis());
+        if (job.getError() != null) {
+            description.addProperty("error", job.getError());
+        }
+        return description;
+    }
+
+    /**
+     * Imports a network definition, journaling each record as it is applied. Like
+     * {@link #execute}, waits for the records to reach disk only after releasing the lock.
+     */
+    private static ImportReport importNetwork(TrainsController tc, Reader definition, boolean isCsv)
+            throws IOException {
+        AtomicReference<CompletableFuture<Void>> lastAppended = new AtomicReference<>();
+        try {
+            writeLock.lock();
+            try {
+                NetworkImporter importer = new NetworkImporter(tc,
+                        command -> lastAppended.set(journal.append(command)));
+                return isCsv ? importer.importCsv(definition) : importer.importJson(definition);
+            } finally {
+                changeCount++;
+                App.publishView(tc);
+                writeLock.unlock();
+            }
+        } finally {
+            // Records applied before a read failure are in the simulation, so wait for them either way
+            if (lastAppended.get() != null) {
+                lastAppended.get().join();
+            }
+        }
+    }
+
     private static void stationRoutes(Gson gson) {
         /**
          * Get all stations ids
          */
         get("/api/stations", "application/json", (request, response) -> {
-            TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                return tc.listStationIds();
-            }
+            return App.getView().getStationIds();
         }, gson::toJson);
 
         /**
          * Get all StationInfoResponses
          */
         get("/api/stations/all", "application/json", (request, response) -> {
-            TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                return tc.listStationIds().stream().map(x -> tc.getStationInfo(x)).toList();
-            }
+            return App.getView().getStations();
         }, gson::toJson);
 
         /**
@@ -120,22 +390,20 @@ public class App {
         */
         post("/api/station/create", "application/json", (request, response) -> {
             TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                List<String> wantedKeys = Arrays.asList("stationId", "type", "x", "y");
-                try {
-                    JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
-                    App.validateWantedKeys(jsonBody, wantedKeys);
-
-                    String stationId = jsonBody.get("stationId").getAsString();
-                    String type = jsonBody.get("type").getAsString();
-                    Double posX = jsonBody.get("x").getAsDouble();
-                    Double posY = jsonBody.get("y").getAsDouble();
-
-                    tc.createStation(stationId, type, posX, posY);
-                    return new JsonObject();
-                } catch (Exception err) {
-                    return App.handleError(err, response);
-                }
+            List<String> wantedKeys = Arrays.asList("stationId", "type", "x", "y");
+            try {
+                JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
+                App.validateWantedKeys(jsonBody, wantedKeys);
+
+                String stationId = jsonBody.get("stationId").getAsString();
+                String type = jsonBody.get("type").getAsString();
+                Double posX = jsonBody.get("x").getAsDouble();
+                Double posY = jsonBody.get("y").getAsDouble();
+
+                App.execute(tc, Command.createStation(stationId, type, posX, posY));
+                return new JsonObject();
+            } catch (Exception err) {
+                return App.handleError(err, response);
             }
         }, gson::toJson);
     }
@@ -145,41 +413,33 @@ public class App {
          * Get all trainIds
          */
         get("/api/trains", "application/json", (request, response) -> {
-            TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                return tc.listTrainIds();
-            }
+            return App.getView().getTrainIds();
         }, gson::toJson);
 
         /**
          * Get all Responses
          */
         get("/api/trains/all", "application/json", (request, response) -> {
-            TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                return tc.listTrainIds().stream().map(x -> tc.getTrainInfo(x)).toList();
-            }
+            return App.getView().getTrains();
         }, gson::toJson);
 
         post("/api/train/create", "application/json", (request, response) -> {
             TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                List<String> wantedKeys = Arrays.asList("trainId", "type", "stationId", "route");
-                try {
-                    JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
-                    App.validateWantedKeys(jsonBody, wantedKeys);
-
-                    String trainId = jsonBody.get("trainId").getAsString();
-                    String type = jsonBody.get("type").getAsString();
-                    String stationId = jsonBody.get("stationId").getAsString();
-                    List<String> route = StreamSupport.stream(jsonBody.getAsJsonArray("route").spliterator(), false)
-                            .map(JsonElement::getAsString).collect(Collectors.toList());
-
-                    tc.createTrain(trainId, type, stationId, route);
-                    return new JsonObject();
-                } catch (Exception err) {
-                    return App.handleError(err, response);
-                }
+            List<String> wantedKeys = Arrays.asList("trainId", "type", "stationId", "route");
+            try {
+                JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
+                App.validateWantedKeys(jsonBody, wantedKeys);
+
+                String trainId = jsonBody.get("trainId").getAsString();
+                String type = jsonBody.get("type").getAsString();
+                String stationId = jsonBody.get("stationId").getAsString();
+                List<String> route = StreamSupport.stream(jsonBody.getAsJsonArray("route").spliterator(), false)
+                        .map(JsonElement::getAsString).collect(Collectors.toList());
+
+                App.execute(tc, Command.createTrain(trainId, type, stationId, route));
+                return new JsonObject();
+            } catch (Exception err) {
+                return App.handleError(err, response);
             }
         }, gson::toJson);
     }
@@ -189,46 +449,38 @@ public class App {
          * Get all trackIds
          */
         get("/api/tracks", "application/json", (request, response) -> {
-            TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                return tc.listTrackIds();
-            }
+            return App.getView().getTrackIds();
         }, gson::toJson);
 
         /**
          * Get all TrackInfoResponses
          */
         get("/api/tracks/all", "application/json", (request, response) -> {
-            TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                return tc.listTrackIds().stream().map(x -> tc.getTrackInfo(x)).toList();
-            }
+            return App.getView().getTracks();
         }, gson::toJson);
 
         post("/api/track/create", "application/json", (request, response) -> {
             TrainsController tc = getTrainsController(request);
-            synchronized (tc) {
-                List<String> wantedKeys = Arrays.asList("trackId", "fromStationId", "toStationId", "type");
-                try {
-                    JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
-                    App.validateWantedKeys(jsonBody, wantedKeys);
-
-                    String trackId = jsonBody.get("trackId").getAsString();
-                    String fromStationId = jsonBody.get("fromStationId").getAsString();
-                    String toStationId = jsonBody.get("toStationId").getAsString();
-                    String type = jsonBody.get("type").getAsString();
-
-                    if (type.equals("NORMAL")) {
-                        tc.createTrack(trackId, fromStationId, toStationId);
-                    } else if (type.equals("UNBROKEN")) {
-                        tc.createTrack(trackId, fromStationId, toStationId, true);
-                    } else {
-                        throw new UNSWException("Invalid type: " + type, "unknown", 400);
-                    }
-                    return new JsonObject();
-                } catch (Exception err) {
-                    return App.handleError(err, response);
+            List<String> wantedKeys = Arrays.asList("trackId", "fromStationId", "toStationId", "type");
+            try {
+                JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
+                App.validateWantedKeys(jsonBody, wantedKeys);
+
+                String trackId = jsonBody.get("trackId").getAsString();
+                String fromStationId = jsonBody.get("fromStationId").getAsString();
+                String toStationId = jsonBody.get("toStationId").getAsString();
+                String type = jsonBody.get("type").getAsString();
+
+                if (type.equals("NORMAL")) {
+                    App.execute(tc, Command.createTrack(trackId, fromStationId, toStationId, false));
+                } else if (type.equals("UNBROKEN")) {
+                    App.execute(tc, Command.createTrack(trackId, fromStationId, toStationId, true));
+                } else {
+                    throw new UNSWException("Invalid type: " + type, "unknown", 400);
                 }
+                return new JsonObject();
+            } catch (Exception err) {
+                return App.handleError(err, response);
             }
         }, gson::toJson);
     };
@@ -237,27 +489,26 @@ public class App {
         post("/api/cargo/create", "application/json", (request, response) -> {
             TrainsController tc = getTrainsController(request);
             List<String> wantedKeys = Arrays.asList("startStationId", "destStationId", "cargoId", "weight");
-            synchronized (tc) {
-                try {
-                    JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
-                    App.validateWantedKeys(jsonBody, wantedKeys);
-
-                    Optional<Integer> minsTillPerish = jsonBody.get("minsTillPerish").isJsonNull() ? Optional.empty()
-                            : Optional.of(jsonBody.get("minsTillPerish").getAsInt());
-                    String startStationId = jsonBody.get("startStationId").getAsString();
-                    String destStationId = jsonBody.get("destStationId").getAsString();
-                    String cargoId = jsonBody.get("cargoId").getAsString();
-                    int weight = jsonBody.get("weight").getAsInt();
-
-                    if (minsTillPerish.isPresent()) {
-                        tc.createPerishableCargo(startStationId, destStationId, cargoId, weight, minsTillPerish.get());
-                    } else {
-                        tc.createCargo(startStationId, destStationId, cargoId, weight);
-                    }
-                    return new JsonObject();
-                } catch (Exception err) {
-                    return App.handleError(err, response);
+            try {
+                JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
+                App.validateWantedKeys(jsonBody, wantedKeys);
+
+                Optional<Integer> minsTillPerish = jsonBody.get("minsTillPerish").isJsonNull() ? Optional.empty()
+                        : Optional.of(jsonBody.get("minsTillPerish").getAsInt());
+                String startStationId = jsonBody.get("startStationId").getAsString();
+                String destStationId = jsonBody.get("destStationId").getAsString();
+                String cargoId = jsonBody.get("cargoId").getAsString();
+                int weight = jsonBody.get("weight").getAsInt();
+
+                if (minsTillPerish.isPresent()) {
+                    App.execute(tc, Command.createPerishableCargo(startStationId, destStationId, cargoId, weight,
+                            minsTillPerish.get()));
+                } else {
+                    App.execute(tc, Command.createCargo(startStationId, destStationId, cargoId, weight));
                 }
+                return new JsonObject();
+            } catch (Exception err) {
+                return App.handleError(err, response);
             }
         }, gson::toJson);
     }
@@ -266,27 +517,43 @@ public class App {
         post("/api/passenger/create", "application/json", (request, response) -> {
             TrainsController tc = getTrainsController(request);
             List<String> wantedKeys = Arrays.asList("startStationId", "destStationId", "passengerId", "type");
-            synchronized (tc) {
-                try {
-                    JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
-                    App.validateWantedKeys(jsonBody, wantedKeys);
-
-                    String startStationId = jsonBody.get("startStationId").getAsString();
-                    String destStationId = jsonBody.get("destStationId").getAsString();
-                    String passengerId = jsonBody.get("passengerId").getAsString();
-                    String type = jsonBody.get("type").getAsString();
-
-                    if (type.equals("Passenger")) {
-                        tc.createPassenger(startStationId, destStationId, passengerId);
-                    } else if (type.equals("Mechanic")) {
-                        tc.createPassenger(startStationId, destStationId, passengerId, true);
-                    } else {
-                        throw new UNSWException("Invalid type: " + type, "unknown", 400);
-                    }
-                    return new JsonObject();
-                } catch (Exception err) {
-                    return App.handleError(err, response);
+            try {
+                JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
+                App.validateWantedKeys(jsonBody, wantedKeys);
+
+                String startStationId = jsonBody.get("startStationId").getAsString();
+                String destStationId = jsonBody.get("destStationId").getAsString();
+                String passengerId = jsonBody.get("passengerId").getAsString();
+                String type = jsonBody.get("type").getAsString();
+
+                if (type.equals("Passenger")) {
+                    App.execute(tc, Command.createPassenger(startStationId, destStationId, passengerId, false));
+                } else if (type.equals("Mechanic")) {
+                    App.execute(tc, Command.createPassenger(startStationId, destStationId, passengerId, true));
+                } else {
+                    throw new UNSWException("Invalid type: " + type, "unknown", 400);
                 }
+                return new JsonObject();
+            } catch (Exception err) {
+                return App.handleError(err, response);
+            }
+        }, gson::toJson);
+    }
+
+    private static void networkRoutes(Gson gson) {
+        /**
+         * Create stations, tracks and trains in bulk, from a JSON or CSV (?format=csv) definition
+         */
+        post("/api/network/import", "application/json", (request, response) -> {
+            TrainsController tc = getTrainsController(request);
+            try {
+                String contentType = request.contentType();
+                boolean isCsv = "csv".equals(request.queryParams("format"))
+                        || (contentType != null && contentType.startsWith("text/csv"));
+                Reader definition = new InputStreamReader(request.raw().getInputStream(), StandardCharsets.UTF_8);
+                return App.importNetwork(tc, definition, isCsv);
+            } catch (Exception err) {
+                return App.handleError(err, response);
             }
         }, gson::toJson);
     }
@@ -295,17 +562,44 @@ public class App {
         post("/api/simulate", "application/json", (request, response) -> {
             TrainsController tc = getTrainsController(request);
             List<String> wantedKeys = Arrays.asList("length");
-            synchronized (tc) {
-                try {
-                    JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
-                    App.validateWantedKeys(jsonBody, wantedKeys);
-
-                    int length = jsonBody.get("length").getAsInt();
-                    tc.simulate(length);
-                    return new JsonObject();
-                } catch (Exception err) {
-                    return App.handleError(err, response);
+            try {
+                JsonObject jsonBody = JsonParser.parseString(request.body()).getAsJsonObject();
+                App.validateWantedKeys(jsonBody, wantedKeys);
+
+                int length = jsonBody.get("length").getAsInt();
+                if (jsonBody.has("async") && jsonBody.get("async").getAsBoolean()) {
+                    long budgetMillis = jsonBody.has("budgetMillis") ? jsonBody.get("budgetMillis").getAsLong() : 0;
+                    return App.describeSimulationJob(App.submitSimulation(tc, length, budgetMillis));
                 }
+
+                App.executeSimulate(tc, length);
+                return new JsonObject();
+            } catch (Exception err) {
+                return App.handleError(err, response);
+            }
+        }, gson::toJson);
+
+        /**
+         * Get the progress of a simulation started with "async": true
+         */
+        get("/api/simulate/jobs/:jobId", "application/json", (request, response) -> {
+            try {
+                return App.describeSimulationJob(App.getSimulationJob(request));
+            } catch (Exception err) {
+                return App.handleError(err, response);
+            }
+        }, gson::toJson);
+
+        /**
+         * Cancel a simulation started with "async": true, stopping it after its current slice
+         */
+        post("/api/simulate/jobs/:jobId/cancel", "application/json", (request, response) -> {
+            try {
+                SimulationJob job = App.getSimulationJob(request);
+                job.cancel();
+                return App.describeSimulationJob(job);
+            } catch (Exception err) {
+                return App.handleError(err, response);
             }
         }, gson::toJson);
     }
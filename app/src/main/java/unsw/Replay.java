@@ -0,0 +1,101 @@
+package unsw;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import unsw.events.SimulationEventLog;
+import unsw.persistence.ReplayEngine;
+import unsw.response.models.TrackInfoResponse;
+import unsw.trains.TrainsController;
+import unsw.utils.TrackType;
+
+/**
+ * Replays the command journal kept by {@link App} without starting the server, and prints the
+ * stations, tracks and trains as JSON once it stops.
+ *
+ * Usage: {@code Replay <data directory> [--tick N] [--until-broken TRACK_ID]}. Without
+ * {@code --tick} the whole journal is replayed. With {@code --until-broken} replay stops in the
+ * minute the given track breaks, if that happens before the tick limit. Track events are logged
+ * before the JSON is printed; set {@code -Dtrains.eventLog} to send them to a file instead.
+ */
+public class Replay {
+    private static final String USAGE = "Usage: Replay <data directory> [--tick N] [--until-broken TRACK_ID]";
+
+    /**
+     * Runs a replay from the command line.
+     *
+     * @param args The data directory, followed by the options above.
+     * @throws IOException if the journal cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            Replay.exitWithUsage(null);
+        }
+
+        int tick = Integer.MAX_VALUE;
+        String brokenTrackId = null;
+        for (int i = 1; i < args.length; i += 2) {
+            if (!args[i].equals("--tick") && !args[i].equals("--until-broken")) {
+                Replay.exitWithUsage("Unknown option: " + args[i]);
+            }
+            if (i + 1 == args.length) {
+                Replay.exitWithUsage("Missing value for " + args[i]);
+            }
+
+            if (args[i].equals("--tick")) {
+                try {
+                    tick = Integer.parseInt(args[i + 1]);
+                } catch (NumberFormatException e) {
+                    Replay.exitWithUsage("Not a tick: " + args[i + 1]);
+                }
+            } else {
+                brokenTrackId = args[i + 1];
+            }
+        }
+
+        ReplayEngine engine = ReplayEngine.fromDirectory(Path.of(args[0]));
+        boolean eventOccurred = false;
+        if (brokenTrackId != null) {
+            String trackId = brokenTrackId;
+            eventOccurred = engine.runUntil(controller -> {
+                TrackInfoResponse track = controller.getTrackInfo(trackId);
+                return track != null && track.getType() == TrackType.BROKEN;
+            }, tick);
+        } else {
+            engine.fastForwardTo(tick);
+        }
+        SimulationEventLog.getDefault().flush();
+
+        TrainsController tc = engine.getController();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("tick", engine.getTick());
+        result.put("commandsApplied", engine.getCommandIndex());
+        if (brokenTrackId != null) {
+            result.put("eventOccurred", eventOccurred);
+        }
+        result.put("stations", tc.listStationIds().stream().map(x -> tc.getStationInfo(x)).toList());
+        result.put("tracks", tc.listTrackIds().stream().map(x -> tc.getTrackInfo(x)).toList());
+        result.put("trains", tc.listTrainIds().stream().map(x -> tc.getTrainInfo(x)).toList());
+
+        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        System.out.println(gson.toJson(result));
+    }
+
+    /**
+     * Reports a problem with the command line, followed by the usage, and exits with status 2.
+     *
+     * @param message What was wrong, or null to print only the usage.
+     */
+    private static void exitWithUsage(String message) {
+        if (message != null) {
+            System.err.println(message);
+        }
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
@@ -0,0 +1,134 @@
+package unsw.events;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import unsw.utils.SimulationEventType;
+
+/**
+ * Holds back the events recorded on one thread, so that events from trains moved in parallel
+ * can be written to their logs afterwards in the order moving the trains one at a time would
+ * have written them.
+ *
+ * Each group of trains moved in parallel records into its own buffer, noting which train is
+ * being moved. Once every group is done, {@link #publishInOrder} writes the events of every
+ * buffer out by train ID, keeping the order each train recorded its own events in.
+ */
+public class EventBuffer {
+    private static final ThreadLocal<EventBuffer> ACTIVE = new ThreadLocal<>();
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private static final Comparator<EventBuffer> BY_NEXT_TRAIN_ID = Comparator
+            .comparing(buffer -> buffer.trainIds[buffer.next]);
+
+    private SimulationEventLog[] logs = new SimulationEventLog[0];
+    private SimulationEventType[] types = new SimulationEventType[0];
+    private String[] trackIds = new String[0];
+    private String[] trainIds = new String[0];
+    private int[] changes = new int[0];
+    private int[] durabilities = new int[0];
+    private int size;
+
+    /**
+     * Train whose events are being recorded, and the next event to write out when publishing.
+     */
+    private String trainId;
+    private int next;
+
+    /**
+     * Makes this buffer hold every event recorded on the current thread, until {@link #deactivate()}.
+     */
+    public void activate() {
+        ACTIVE.set(this);
+    }
+
+    /**
+     * Stops holding back events recorded on the current thread.
+     */
+    public static void deactivate() {
+        ACTIVE.remove();
+    }
+
+    /**
+     * Returns the buffer holding the current thread's events.
+     *
+     * @return the active buffer, or null if events are written straight to their log.
+     */
+    static EventBuffer active() {
+        return ACTIVE.get();
+    }
+
+    /**
+     * Marks the events recorded from now on as caused by a train.
+     *
+     * @param trainId ID of the train about to be moved.
+     */
+    public void startTrain(String trainId) {
+        this.trainId = trainId;
+    }
+
+    /**
+     * Checks whether any event has been held back.
+     *
+     * @return true if the buffer is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Holds back an event for the given log.
+     */
+    void add(SimulationEventLog log, SimulationEventType type, String trackId, int change, int durability) {
+        if (size == logs.length) {
+            int capacity = Math.max(INITIAL_CAPACITY, size * 2);
+            logs = Arrays.copyOf(logs, capacity);
+            types = Arrays.copyOf(types, capacity);
+            trackIds = Arrays.copyOf(trackIds, capacity);
+            trainIds = Arrays.copyOf(trainIds, capacity);
+            changes = Arrays.copyOf(changes, capacity);
+            durabilities = Arrays.copyOf(durabilities, capacity);
+        }
+
+        logs[size] = log;
+        types[size] = type;
+        trackIds[size] = trackId;
+        trainIds[size] = trainId;
+        changes[size] = change;
+        durabilities[size] = durability;
+        size++;
+    }
+
+    /**
+     * Writes out the events held in each buffer, ordered by the ID of the train that caused them.
+     * Every buffer must have been filled by moving its trains in train ID order, and no train may
+     * have been moved in more than one buffer.
+     *
+     * @param buffers Buffers to write out; null entries are skipped.
+     */
+    public static void publishInOrder(List<EventBuffer> buffers) {
+        PriorityQueue<EventBuffer> heads = new PriorityQueue<>(BY_NEXT_TRAIN_ID);
+        for (EventBuffer buffer : buffers) {
+            if (buffer != null && !buffer.isEmpty()) {
+                buffer.next = 0;
+                heads.add(buffer);
+            }
+        }
+
+        while (!heads.isEmpty()) {
+            EventBuffer buffer = heads.poll();
+            String current = buffer.trainIds[buffer.next];
+            do {
+                int i = buffer.next++;
+                buffer.logs[i].write(buffer.types[i], buffer.trackIds[i], buffer.changes[i], buffer.durabilities[i]);
+            } while (buffer.next < buffer.size && buffer.trainIds[buffer.next].equals(current));
+
+            if (buffer.next < buffer.size) {
+                heads.add(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package unsw.events;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import unsw.utils.SimulationEventType;
+
+/**
+ * A log of simulation events, such as tracks wearing down, breaking and being repaired.
+ *
+ * Events are written into a fixed ring of preallocated slots and written out by a background
+ * thread, so recording an event on the simulation thread does no I/O, takes no lock and
+ * allocates nothing. Any number of threads may record events at once: each claims the next
+ * slot with a compare-and-set and then marks it as published, and the sink writes slots out
+ * strictly in the order they were claimed. If the sink falls a whole ring behind, recording
+ * waits for it to catch up rather than losing events.
+ *
+ * Events recorded on a thread with an active {@link EventBuffer} are held there instead, and
+ * written later in train ID order.
+ */
+public class SimulationEventLog implements AutoCloseable {
+    /**
+     * System property naming a file the default log is appended to, instead of standard output.
+     */
+    public static final String FILE_PROPERTY = "trains.eventLog";
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * How long the sink sleeps when it finds nothing to write.
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * One event. A slot with sequence {@code n + 1} holds the event claimed as number {@code n};
+     * any other sequence means the slot is free or still being written.
+     */
+    private static final class Slot {
+        private volatile long sequence;
+        private SimulationEventType type;
+        private String trackId;
+        private int change;
+        private int durability;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final PrintStream out;
+    private final Thread sink;
+
+    /**
+     * Number of events claimed by writers, and number written out by the sink.
+     */
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long drained;
+    private volatile boolean closed;
+
+    /**
+     * Created on first use, so runs that never log an event never start a sink.
+     */
+    private static final class DefaultLog {
+        private static final SimulationEventLog INSTANCE = createDefault();
+    }
+
+    /**
+     * Constructs a log writing to the given stream, and starts its sink.
+     *
+     * @param out      Stream to write events to.
+     * @param capacity Number of events that can be waiting to be written. Rounded up to a power of two.
+     */
+    public SimulationEventLog(PrintStream out, int capacity) {
+        int size = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            slots[i].sequence = i;
+        }
+        this.out = out;
+        this.sink = new Thread(this::runSink, "simulation-event-log");
+        this.sink.setDaemon(true);
+        this.sink.start();
+    }
+
+    /**
+     * Constructs a log writing to the given stream, and starts its sink.
+     *
+     * @param out Stream to write events to.
+     */
+    public SimulationEventLog(PrintStream out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the log shared by every track that has not been given its own. It writes to the
+     * file named by {@link #FILE_PROPERTY} if set, and to standard output otherwise, and is
+     * flushed when the JVM exits.
+     *
+     * @return the default log.
+     */
+    public static SimulationEventLog getDefault() {
+        return DefaultLog.INSTANCE;
+    }
+
+    /**
+     * Records a track wearing down.
+     *
+     * @param trackId    ID of the track.
+     * @param reduction  How much durability was lost.
+     * @param durability Durability after the reduction.
+     */
+    public void durabilityChanged(String trackId, int reduction, int durability) {
+        publish(SimulationEventType.DURABILITY_CHANGED, trackId, reduction, durability);
+    }
+
+    /**
+     * Records a track breaking.
+     *
+     * @param trackId ID of the track.
+     */
+    public void trackBroken(String trackId) {
+        publish(SimulationEventType.TRACK_BROKEN, trackId, 0, 0);
+    }
+
+    /**
+     * Records one step of repair on a broken track.
+     *
+     * @param trackId    ID of the track.
+     * @param durability Durability after the repair.
+     */
+    public void trackRepairing(String trackId, int durability) {
+        publish(SimulationEventType.TRACK_REPAIRING, trackId, 1, durability);
+    }
+
+    /**
+     * Records a track being fully repaired.
+     *
+     * @param trackId ID of the track.
+     */
+    public void trackRepaired(String trackId) {
+        publish(SimulationEventType.TRACK_REPAIRED, trackId, 0, 0);
+    }
+
+    /**
+     * Waits until every event recorded before this call has been written out.
+     */
+    public void flush() {
+        long target = claimed.get();
+        while (drained < target && sink.isAlive()) {
+            LockSupport.unpark(sink);
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes out every recorded event and stops the sink. Events recorded afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        flush();
+        closed = true;
+        LockSupport.unpark(sink);
+        try {
+            sink.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.flush();
+    }
+
+    /**
+     * Records an event, holding it back if the current thread has an active {@link EventBuffer}.
+     */
+    private void publish(SimulationEventType type, String trackId, int change, int durability) {
+        EventBuffer buffer = EventBuffer.active();
+        if (buffer != null) {
+            buffer.add(this, type, trackId, change, durability);
+            return;
+        }
+        write(type, trackId, change, durability);
+    }
+
+    /**
+     * Claims the next slot, fills it in and publishes it.
+     */
+    void write(SimulationEventType type, String trackId, int change, int durability) {
+        while (!closed) {
+            long number = claimed.get();
+            Slot slot = slots[(int) number & mask];
+            long sequence = slot.sequence;
+
+            if (sequence == number) {
+                if (claimed.compareAndSet(number, number + 1)) {
+                    slot.type = type;
+                    slot.trackId = trackId;
+                    slot.change = change;
+                    slot.durability = durability;
+                    slot.sequence = number + 1;
+                    return;
+                }
+            } else if (sequence < number) {
+                // The ring is full, so wait for the sink to free this slot
+                LockSupport.unpark(sink);
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Writes out published events in order until the log is closed and nothing is left.
+     */
+    private void runSink() {
+        StringBuilder line = new StringBuilder();
+        long next = 0;
+        while (true) {
+            Slot slot = slots[(int) next & mask];
+            if (slot.sequence == next + 1) {
+                line.setLength(0);
+                format(line, slot);
+                out.println(line);
+
+                slot.trackId = null;
+                slot.sequence = next + slots.length;
+                next++;
+                drained = next;
+                continue;
+            }
+
+            out.flush();
+            if (closed && claimed.get() == next)
+                return;
+
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    /**
+     * Formats an event as a line of text.
+     */
+    private static void format(StringBuilder line, Slot slot) {
+        switch (slot.type) {
+        case DURABILITY_CHANGED:
+            line.append("Reducing track durability by: ").append(slot.change).append(", new durability: ")
+                    .append(slot.durability);
+            break;
+        case TRACK_BROKEN:
+            line.append("Track ").append(slot.trackId).append(" is now BROKEN.");
+            break;
+        case TRACK_REPAIRING:
+            line.append("Repairing track ").append(slot.trackId).append(", durability now: ")
+                    .append(slot.durability);
+            break;
+        case TRACK_REPAIRED:
+            line.append("Track ").append(slot.trackId).append(" is fully repaired.");
+            break;
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Creates the default log and arranges for it to be flushed on exit.
+     */
+    private static SimulationEventLog createDefault() {
+        PrintStream out = System.out;
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null && !file.isEmpty()) {
+            try {
+                out = new PrintStream(new BufferedOutputStream(new FileOutputStream(file, true)), false,
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Could not open event log " + file + ", logging to standard output: " + e);
+            }
+        }
+
+        SimulationEventLog log = new SimulationEventLog(out);
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "simulation-event-log-shutdown"));
+        return log;
+    }
+}
@@ -4,9 +4,10 @@ package unsw.loads;
  * Represents a unit of regular cargo to be transported by a train.
  * Cargo includes a unique ID, a destination station ID, and a weight in kilograms.
  */
-public class Cargo {
+public class Cargo implements Load {
     private String cargoId;
     private String destination;
+    private int destinationHandle;
     private int weight;
 
     /**
@@ -14,11 +15,13 @@ public class Cargo {
      *
      * @param cargoId     Unique identifier for the cargo.
      * @param destination Station ID where the cargo should be delivered.
+     * @param destinationHandle Station handle of the destination.
      * @param weight      Weight of the cargo in kilograms.
      */
-    public Cargo(String cargoId, String destination, int weight) {
+    public Cargo(String cargoId, String destination, int destinationHandle, int weight) {
         this.cargoId = cargoId;
         this.destination = destination;
+        this.destinationHandle = destinationHandle;
         this.weight = weight;
     }
 
@@ -31,15 +34,36 @@ public class Cargo {
         return cargoId;
     }
 
+    /**
+     * Returns the unique ID of the cargo.
+     *
+     * @return cargo ID.
+     */
+    @Override
+    public String getLoadId() {
+        return cargoId;
+    }
+
     /**
      * Returns the destination station ID for this cargo.
      *
      * @return destination station ID.
      */
+    @Override
     public String getDestination() {
         return destination;
     }
 
+    /**
+     * Returns the station handle of the cargo's destination.
+     *
+     * @return destination station handle.
+     */
+    @Override
+    public int getDestinationHandle() {
+        return destinationHandle;
+    }
+
     /**
      * Returns the weight of the cargo in kilograms.
      *
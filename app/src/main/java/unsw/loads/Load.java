@@ -0,0 +1,27 @@
+package unsw.loads;
+
+/**
+ * Represents anything a train can carry to a destination station, such as passengers and cargo.
+ */
+public interface Load {
+    /**
+     * Returns the unique ID of the load.
+     *
+     * @return load ID.
+     */
+    String getLoadId();
+
+    /**
+     * Returns the destination station ID for this load.
+     *
+     * @return destination station ID.
+     */
+    String getDestination();
+
+    /**
+     * Returns the station handle of the load's destination.
+     *
+     * @return destination station handle.
+     */
+    int getDestinationHandle();
+}
@@ -0,0 +1,411 @@
+package unsw.loads;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A collection of loads grouped into buckets by destination station handle. Every load is
+ * stamped with a sequence number when it is added, so the loads can still be visited in the
+ * order they arrived, across buckets.
+ *
+ * This lets a train look only at the loads headed somewhere on its route when boarding, and
+ * take every load for a station in one step when unloading, instead of scanning every load.
+ *
+ * Each load sits in two linked lists, one in arrival order across the whole queue and one for
+ * its destination bucket, and is indexed by identity. Adding and removing a load are therefore
+ * constant time, without shifting the other loads.
+ *
+ * @param <T> the type of load held.
+ */
+public class LoadQueue<T extends Load> extends AbstractCollection<T> {
+    private static final Comparator<Entry<?>> BY_SEQUENCE = Comparator.comparingLong(entry -> entry.sequence);
+
+    /**
+     * A load, the order in which it was added, and its neighbours in the queue and in its bucket.
+     */
+    private static final class Entry<T> {
+        private final long sequence;
+        private final T load;
+        private final Bucket<T> bucket;
+
+        private Entry<T> previous;
+        private Entry<T> next;
+        private Entry<T> previousInBucket;
+        private Entry<T> nextInBucket;
+
+        private Entry(long sequence, T load, Bucket<T> bucket) {
+            this.sequence = sequence;
+            this.load = load;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * The loads for one destination, in the order they were added.
+     */
+    private static final class Bucket<T> {
+        private Entry<T> first;
+        private Entry<T> last;
+    }
+
+    private static final int INITIAL_BUCKET_SLOTS = 8;
+
+    /**
+     * Buckets keyed by destination station handle, in an open-addressed table with linear probing.
+     * Only destinations that loads have been added for take a slot, so a queue holding loads for a
+     * few stations stays small however many stations the network has. Buckets are kept once
+     * created, even when empty.
+     */
+    private int[] bucketKeys;
+    private Bucket<T>[] buckets;
+    private int bucketCount;
+
+    /**
+     * The entry of every load in the queue, keyed by the load itself.
+     */
+    private Map<T, Entry<T>> entries;
+
+    private Entry<T> first;
+    private Entry<T> last;
+    private long nextSequence;
+
+    /**
+     * Heads of the buckets being boarded from when there is more than one, kept between calls
+     * to {@link #board} so that boarding does not allocate. Empty outside of a call.
+     */
+    private PriorityQueue<Entry<T>> boardingHeads;
+
+    /**
+     * Constructs an empty LoadQueue.
+     */
+    @SuppressWarnings("unchecked")
+    public LoadQueue() {
+        this.bucketKeys = new int[INITIAL_BUCKET_SLOTS];
+        this.buckets = (Bucket<T>[]) new Bucket<?>[INITIAL_BUCKET_SLOTS];
+        this.entries = new IdentityHashMap<>();
+    }
+
+    /**
+     * Adds a load to the end of the queue and of the bucket for its destination.
+     *
+     * @param load The load to add.
+     * @return true if the load was added, false if it was already in the queue.
+     */
+    @Override
+    public boolean add(T load) {
+        if (entries.containsKey(load))
+            return false;
+
+        Bucket<T> bucket = getOrCreateBucket(load.getDestinationHandle());
+
+        Entry<T> entry = new Entry<>(nextSequence++, load, bucket);
+        entry.previous = last;
+        if (last == null) {
+            first = entry;
+        } else {
+            last.next = entry;
+        }
+        last = entry;
+
+        entry.previousInBucket = bucket.last;
+        if (bucket.last == null) {
+            bucket.first = entry;
+        } else {
+            bucket.last.nextInBucket = entry;
+        }
+        bucket.last = entry;
+
+        entries.put(load, entry);
+        return true;
+    }
+
+    /**
+     * Removes a load in constant time.
+     *
+     * @param o The load to remove.
+     * @return true if the load was found and removed.
+     */
+    @Override
+    public boolean remove(Object o) {
+        Entry<T> entry = entries.get(o);
+        if (entry == null)
+            return false;
+
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Checks whether a load is in the queue, in constant time.
+     *
+     * @param o The load to look for.
+     * @return true if the load is in the queue.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return entries.containsKey(o);
+    }
+
+    /**
+     * Returns the number of loads held.
+     *
+     * @return number of loads.
+     */
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns an iterator over the loads, in the order they were added.
+     *
+     * @return iterator over the loads.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private Entry<T> next = first;
+            private Entry<T> lastReturned = null;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public T next() {
+                if (next == null)
+                    throw new NoSuchElementException();
+
+                lastReturned = next;
+                next = next.next;
+                return lastReturned.load;
+            }
+
+            @Override
+            public void remove() {
+                if (lastReturned == null)
+                    throw new IllegalStateException();
+
+                unlink(lastReturned);
+                lastReturned = null;
+            }
+        };
+    }
+
+    /**
+     * Returns the loads in the order they were added.
+     *
+     * @return new list of loads.
+     */
+    public List<T> toList() {
+        List<T> loads = new ArrayList<>(size());
+        for (Entry<T> entry = first; entry != null; entry = entry.next) {
+            loads.add(entry.load);
+        }
+        return loads;
+    }
+
+    /**
+     * Removes every load headed for a destination.
+     *
+     * @param destination Station handle of the destination.
+     * @return the removed loads, in the order they were added.
+     */
+    public List<T> removeDestination(int destination) {
+        Bucket<T> bucket = getBucket(destination);
+        if (bucket == null || bucket.first == null)
+            return List.of();
+
+        List<T> loads = new ArrayList<>();
+        Entry<T> entry = bucket.first;
+        while (entry != null) {
+            Entry<T> next = entry.nextInBucket;
+            loads.add(entry.load);
+            unlink(entry);
+            entry = next;
+        }
+        return loads;
+    }
+
+    /**
+     * Offers the loads headed for the given destinations to a boarding predicate, in the order
+     * they were added, removing each load the predicate accepts. Loads for other destinations
+     * are never looked at. Boarding stops early once {@code canContinue} returns false.
+     *
+     * @param destinations Station handles of the destinations to board, without duplicates.
+     * @param canContinue  Checked before each load; boarding stops once it returns false.
+     * @param boards       Called for each load in turn, returning true if it boarded.
+     */
+    public void board(int[] destinations, BooleanSupplier canContinue, Predicate<T> boards) {
+        Bucket<T> matched = null;
+        int matchedCount = 0;
+        for (int destination : destinations) {
+            Bucket<T> bucket = getBucket(destination);
+            if (bucket != null && bucket.first != null) {
+                matched = bucket;
+                matchedCount++;
+            }
+        }
+
+        if (matchedCount == 0)
+            return;
+
+        if (matchedCount == 1) {
+            // A single bucket is already in the order its loads were added, so no merging is needed
+            Entry<T> entry = matched.first;
+            while (entry != null && canContinue.getAsBoolean()) {
+                Entry<T> next = entry.nextInBucket;
+                if (boards.test(entry.load)) {
+                    unlink(entry);
+                }
+                entry = next;
+            }
+            return;
+        }
+
+        if (boardingHeads == null) {
+            boardingHeads = new PriorityQueue<>(BY_SEQUENCE);
+        }
+        PriorityQueue<Entry<T>> heads = boardingHeads;
+        try {
+            for (int destination : destinations) {
+                Bucket<T> bucket = getBucket(destination);
+                if (bucket != null && bucket.first != null) {
+                    heads.add(bucket.first);
+                }
+            }
+
+            while (!heads.isEmpty() && canContinue.getAsBoolean()) {
+                Entry<T> entry = heads.poll();
+                if (entry.nextInBucket != null) {
+                    heads.add(entry.nextInBucket);
+                }
+
+                if (boards.test(entry.load)) {
+                    unlink(entry);
+                }
+            }
+        } finally {
+            heads.clear();
+        }
+    }
+
+    /**
+     * Called after a load has been removed from the queue. Does nothing by default.
+     *
+     * @param load The removed load.
+     */
+    protected void removed(T load) {
+    }
+
+    /**
+     * Removes an entry from the queue and from its bucket.
+     *
+     * @param entry The entry to remove.
+     */
+    private void unlink(Entry<T> entry) {
+        if (entry.previous == null) {
+            first = entry.next;
+        } else {
+            entry.previous.next = entry.next;
+        }
+        if (entry.next == null) {
+            last = entry.previous;
+        } else {
+            entry.next.previous = entry.previous;
+        }
+
+        Bucket<T> bucket = entry.bucket;
+        if (entry.previousInBucket == null) {
+            bucket.first = entry.nextInBucket;
+        } else {
+            entry.previousInBucket.nextInBucket = entry.nextInBucket;
+        }
+        if (entry.nextInBucket == null) {
+            bucket.last = entry.previousInBucket;
+        } else {
+            entry.nextInBucket.previousInBucket = entry.previousInBucket;
+        }
+
+        entries.remove(entry.load);
+        removed(entry.load);
+    }
+
+    /**
+     * Finds the bucket for a destination.
+     *
+     * @param destination Station handle of the destination.
+     * @return the bucket, or null if no load for that destination has been added.
+     */
+    private Bucket<T> getBucket(int destination) {
+        int mask = buckets.length - 1;
+        for (int slot = mix(destination) & mask; buckets[slot] != null; slot = (slot + 1) & mask) {
+            if (bucketKeys[slot] == destination)
+                return buckets[slot];
+        }
+        return null;
+    }
+
+    /**
+     * Finds the bucket for a destination, creating it if there is none.
+     *
+     * @param destination Station handle of the destination.
+     * @return the bucket.
+     */
+    private Bucket<T> getOrCreateBucket(int destination) {
+        Bucket<T> bucket = getBucket(destination);
+        if (bucket != null)
+            return bucket;
+
+        // Keep the table at most half full, so probes stay short
+        if (2 * (bucketCount + 1) > buckets.length) {
+            resizeBuckets(buckets.length * 2);
+        }
+
+        bucket = new Bucket<>();
+        insertBucket(destination, bucket);
+        bucketCount++;
+        return bucket;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resizeBuckets(int slots) {
+        int[] oldKeys = bucketKeys;
+        Bucket<T>[] oldBuckets = buckets;
+        bucketKeys = new int[slots];
+        buckets = (Bucket<T>[]) new Bucket<?>[slots];
+        for (int i = 0; i < oldBuckets.length; i++) {
+            if (oldBuckets[i] != null) {
+                insertBucket(oldKeys[i], oldBuckets[i]);
+            }
+        }
+    }
+
+    private void insertBucket(int destination, Bucket<T> bucket) {
+        int mask = buckets.length - 1;
+        int slot = mix(destination) & mask;
+        while (buckets[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        bucketKeys[slot] = destination;
+        buckets[slot] = bucket;
+    }
+
+    /**
+     * Spreads consecutive handles across the table.
+     */
+    private static int mix(int handle) {
+        int h = handle * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
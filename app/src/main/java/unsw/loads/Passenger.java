@@ -3,19 +3,22 @@ package unsw.loads;
 /**
  * Represents a passenger who will board a train and travel to a specific destination station.
  */
-public class Passenger {
+public class Passenger implements Load {
     private String passengerId;
     private String destination;
+    private int destinationHandle;
 
     /**
      * Constructs a new Passenger.
      *
-     * @param passengerId  Unique identifier for the passenger.
-     * @param destination  Station ID where the passenger wants to go.
+     * @param passengerId        Unique identifier for the passenger.
+     * @param destination        Station ID where the passenger wants to go.
+     * @param destinationHandle  Station handle of the destination.
      */
-    public Passenger(String passengerId, String destination) {
+    public Passenger(String passengerId, String destination, int destinationHandle) {
         this.passengerId = passengerId;
         this.destination = destination;
+        this.destinationHandle = destinationHandle;
     }
 
     /**
@@ -27,12 +30,33 @@ public class Passenger {
         return passengerId;
     }
 
+    /**
+     * Returns the unique ID of the passenger.
+     *
+     * @return passenger ID.
+     */
+    @Override
+    public String getLoadId() {
+        return passengerId;
+    }
+
     /**
      * Returns the destination station ID for this passenger.
      *
      * @return destination station ID.
      */
+    @Override
     public String getDestination() {
         return destination;
     }
+
+    /**
+     * Returns the station handle of the passenger's destination.
+     *
+     * @return destination station handle.
+     */
+    @Override
+    public int getDestinationHandle() {
+        return destinationHandle;
+    }
 }
@@ -3,20 +3,35 @@ package unsw.loads;
 /**
  * Represents perishable cargo that can expire after a certain time.
  * Inherits from {@link Cargo} and adds a perishability timer.
+ *
+ * While the cargo is held in a {@link PerishableCargoQueue}, it stores the minute of that
+ * queue's clock at which it expires rather than a countdown, so the cargo does not need to
+ * be updated as time passes.
  */
 public class PerishableCargo extends Cargo {
+    /**
+     * Minutes until the cargo perishes, used while the cargo is not held in a queue.
+     */
     private int minutesTillPerish;
 
+    /**
+     * The queue holding the cargo, and the minute of its clock at which the cargo expires.
+     */
+    private PerishableCargoQueue holder;
+    private long expiryTick;
+
     /**
      * Constructs a PerishableCargo item.
      *
      * @param cargoId            Unique identifier for the cargo.
      * @param destination        Station ID where the cargo should be delivered.
+     * @param destinationHandle  Station handle of the destination.
      * @param weight             Weight of the cargo in kilograms.
      * @param minutesTillPerish  Time in minutes until the cargo perishes.
      */
-    public PerishableCargo(String cargoId, String destination, int weight, int minutesTillPerish) {
-        super(cargoId, destination, weight);
+    public PerishableCargo(String cargoId, String destination, int destinationHandle, int weight,
+            int minutesTillPerish) {
+        super(cargoId, destination, destinationHandle, weight);
         this.minutesTillPerish = minutesTillPerish;
     }
 
@@ -26,24 +41,56 @@ public class PerishableCargo extends Cargo {
      * @return time until perish in minutes.
      */
     public int getMinutesTillPerish() {
-        return minutesTillPerish;
+        if (holder == null)
+            return minutesTillPerish;
+
+        return (int) (expiryTick - holder.getClock());
     }
 
     /**
-     * Decreases the perish timer by a given number of minutes.
+     * Checks whether the cargo has expired (i.e., time remaining is 0 or less).
      *
-     * @param minutes The number of minutes to decrease.
+     * @return true if the cargo is expired, false otherwise.
      */
-    public void decreaseTime(int minutes) {
-        this.minutesTillPerish -= minutes;
+    public boolean isExpired() {
+        return getMinutesTillPerish() <= 0;
     }
 
     /**
-     * Checks whether the cargo has expired (i.e., time remaining is 0 or less).
+     * Returns the minute of the holding queue's clock at which the cargo expires.
      *
-     * @return true if the cargo is expired, false otherwise.
+     * @return expiry tick.
      */
-    public boolean isExpired() {
-        return this.minutesTillPerish <= 0;
+    long getExpiryTick() {
+        return expiryTick;
+    }
+
+    /**
+     * Checks whether the cargo is currently held in a queue.
+     *
+     * @param queue The queue to check.
+     * @return true if the cargo is held in the queue.
+     */
+    boolean isHeldBy(PerishableCargoQueue queue) {
+        return holder == queue;
+    }
+
+    /**
+     * Moves the cargo onto a queue's clock, keeping the time it has left.
+     *
+     * @param queue The queue now holding the cargo.
+     */
+    void attach(PerishableCargoQueue queue) {
+        int remaining = getMinutesTillPerish();
+        this.holder = queue;
+        this.expiryTick = queue.getClock() + remaining;
+    }
+
+    /**
+     * Takes the cargo off its queue's clock, keeping the time it has left.
+     */
+    void detach() {
+        this.minutesTillPerish = getMinutesTillPerish();
+        this.holder = null;
     }
 }
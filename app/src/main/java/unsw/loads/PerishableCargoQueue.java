@@ -0,0 +1,124 @@
+package unsw.loads;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * A {@link LoadQueue} of perishable cargo that ages the cargo it holds. The queue keeps a clock
+ * counting the minutes its cargo has aged, and each item stores the minute at which it expires,
+ * so ageing only advances the clock and touches the items that actually expire.
+ *
+ * Each holder of perishable cargo (a station or a train) has its own clock, because cargo on
+ * a train that is not at a station does not age.
+ */
+public class PerishableCargoQueue extends LoadQueue<PerishableCargo> {
+    private static final Comparator<Expiry> BY_TICK = Comparator.comparingLong(expiry -> expiry.tick);
+
+    /**
+     * The minute an item was due to expire when it was added. Items that have since left
+     * the queue are skipped when their expiry comes up, rather than searched for on removal.
+     */
+    private static final class Expiry {
+        private final long tick;
+        private final PerishableCargo cargo;
+
+        private Expiry(long tick, PerishableCargo cargo) {
+            this.tick = tick;
+            this.cargo = cargo;
+        }
+
+        private boolean isCurrent(PerishableCargoQueue queue) {
+            return cargo.isHeldBy(queue) && cargo.getExpiryTick() == tick;
+        }
+    }
+
+    private PriorityQueue<Expiry> expiries = new PriorityQueue<>(BY_TICK);
+    private long clock;
+
+    /**
+     * Adds perishable cargo to the queue, carrying over the time it has left.
+     *
+     * @param cargo The cargo to add.
+     * @return true if the cargo was added, false if it was already in the queue.
+     */
+    @Override
+    public boolean add(PerishableCargo cargo) {
+        if (contains(cargo))
+            return false;
+
+        cargo.attach(this);
+        expiries.add(new Expiry(cargo.getExpiryTick(), cargo));
+
+        // Drop the entries of items that have left, once they make up most of the heap
+        if (expiries.size() > 2 * (size() + 1) + 16) {
+            discardLeftEntries();
+        }
+        return super.add(cargo);
+    }
+
+    /**
+     * Returns the number of minutes the queue's cargo has aged.
+     *
+     * @return the queue's clock.
+     */
+    public long getClock() {
+        return clock;
+    }
+
+    /**
+     * Ages the cargo in the queue and removes any that has expired.
+     *
+     * @param minutes Number of minutes to age by.
+     * @return total weight of the removed cargo.
+     */
+    public int age(int minutes) {
+        clock += minutes;
+
+        int removedWeight = 0;
+        while (!expiries.isEmpty() && expiries.peek().tick <= clock) {
+            Expiry expiry = expiries.poll();
+            if (expiry.isCurrent(this) && remove(expiry.cargo)) {
+                removedWeight += expiry.cargo.getWeight();
+            }
+        }
+        return removedWeight;
+    }
+
+    /**
+     * Returns the number of minutes until the next item in the queue expires.
+     *
+     * @return minutes until the next expiry, or Integer.MAX_VALUE if the queue is empty.
+     */
+    public int getMinutesUntilNextExpiry() {
+        while (!expiries.isEmpty() && !expiries.peek().isCurrent(this)) {
+            expiries.poll();
+        }
+
+        if (expiries.isEmpty())
+            return Integer.MAX_VALUE;
+
+        return (int) (expiries.peek().tick - clock);
+    }
+
+    /**
+     * Takes removed cargo off the queue's clock, unless it has already been added elsewhere.
+     *
+     * @param cargo The removed cargo.
+     */
+    @Override
+    protected void removed(PerishableCargo cargo) {
+        if (cargo.isHeldBy(this)) {
+            cargo.detach();
+        }
+    }
+
+    private void discardLeftEntries() {
+        PriorityQueue<Expiry> current = new PriorityQueue<>(BY_TICK);
+        for (Expiry expiry : expiries) {
+            if (expiry.isCurrent(this)) {
+                current.add(expiry);
+            }
+        }
+        expiries = current;
+    }
+}
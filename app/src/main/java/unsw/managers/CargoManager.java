@@ -5,28 +5,11 @@ import unsw.loads.PerishableCargo;
 import unsw.stations.Station;
 import unsw.trains.Train;
 
-import java.util.Iterator;
-import java.util.List;
-
 /**
- * Utility class responsible for managing cargo operations such as loading,
- * unloading, and removing expired perishable cargo.
+ * Utility class responsible for managing cargo operations such as loading
+ * and unloading.
  */
 public class CargoManager {
-    /**
-     * Reference to the TrainMovementManager, used to estimate delivery times.
-     */
-    private static TrainMovementManager trainMovementManager;
-
-    /**
-     * Sets the TrainMovementManager to be used for estimating delivery times.
-     *
-     * @param manager the TrainMovementManager instance.
-     */
-    public static void setTrainMovementManager(TrainMovementManager manager) {
-        trainMovementManager = manager;
-    }
-
     /**
      * Unloads cargo from the given train if its destination matches the given station.
      * Both regular and perishable cargo are handled.
@@ -35,91 +18,46 @@ public class CargoManager {
      * @param station The destination station.
      */
     public static void unloadCargo(Train train, Station station) {
-        Iterator<Cargo> iterator = train.getCargo().iterator();
-        while (iterator.hasNext()) {
-            Cargo cargo = iterator.next();
-            if (cargo.getDestination().equals(station.getStationId())) {
-                iterator.remove();
-                train.removeCargo(cargo);
-                station.addCargo(cargo);
-            }
+        for (Cargo cargo : train.removeCargoFor(station.getHandle())) {
+            station.addCargo(cargo);
         }
 
-        Iterator<PerishableCargo> perishableIterator = train.getPerishableCargo().iterator();
-        while (perishableIterator.hasNext()) {
-            PerishableCargo perishableCargo = perishableIterator.next();
-            if (perishableCargo.getDestination().equals(station.getStationId())) {
-                perishableIterator.remove();
-                train.removeCargo(perishableCargo);
-                station.addCargo(perishableCargo);
-            }
+        for (PerishableCargo perishableCargo : train.removePerishableCargoFor(station.getHandle())) {
+            station.addCargo(perishableCargo);
         }
     }
 
     /**
      * Loads cargo from a station onto the train if there's available capacity.
-     * Skips perishable cargo that will expire before reaching its destination.
+     * Only cargo headed for a station on the train's route is considered.
+     * Skips perishable cargo that will expire before the train reaches its destination.
      *
-     * @param train   The train to load onto.
-     * @param station The station to load from.
+     * @param train      The train to load onto.
+     * @param station    The station to load from.
+     * @param etaManager Manager used to estimate delivery times of perishable cargo.
      */
-    public static void boardCargo(Train train, Station station) {
-        Iterator<Cargo> regularIterator = station.getCargoWaiting().iterator();
-        while (regularIterator.hasNext()) {
-            Cargo cargo = regularIterator.next();
-            if (train.hasCapacity()) {
-                train.addCargo(cargo);
-                regularIterator.remove();
-                station.removeCargo(cargo);
-            }
+    public static void boardCargo(Train train, Station station, EtaManager etaManager) {
+        if (station.getCargoWaiting().isEmpty() && station.getPerishableCargoWaiting().isEmpty()) {
+            return; // Nothing to board, avoid allocating every tick
         }
 
-        Iterator<PerishableCargo> perishableIterator = station.getPerishableCargoWaiting().iterator();
-        while (perishableIterator.hasNext()) {
-            PerishableCargo perishableCargo = perishableIterator.next();
-            int estimatedTime = estimateTimeToDestination(train, perishableCargo.getDestination());
+        int[] destinations = train.getCompiledRoute().getMemberHandles();
 
-            if (estimatedTime > perishableCargo.getMinutesTillPerish()) {
-                continue; // Will perish in transit, skip it
-            }
+        station.boardCargo(destinations, train::hasCapacity, cargo -> {
+            train.addCargo(cargo);
+            return true;
+        });
 
-            if (train.hasCapacity()) {
-                train.addCargo(perishableCargo);
-                perishableIterator.remove();
-                station.removeCargo(perishableCargo);
-            }
-        }
-    }
-
-    /**
-     * Removes expired perishable cargo from the provided list.
-     *
-     * @param perishableCargoList List of perishable cargo to filter.
-     */
-    public static void removeExpiredPerishableCargo(List<PerishableCargo> perishableCargoList) {
-        perishableCargoList.removeIf(PerishableCargo::isExpired);
-    }
+        station.boardPerishableCargo(destinations, train::hasCapacity, perishableCargo -> {
+            int estimatedTime = etaManager.estimateMinutes(train, perishableCargo.getDestinationHandle(),
+                    perishableCargo.getWeight());
 
-    /**
-     * Estimates the travel time in minutes for the train to reach a cargo's destination.
-     *
-     * @param train           The train carrying the cargo.
-     * @param cargoDestination The destination station ID.
-     * @return Estimated time in minutes.
-     */
-    private static int estimateTimeToDestination(Train train, String cargoDestination) {
-        if (trainMovementManager == null) {
-            throw new IllegalStateException("TrainMovementManager has not been set in CargoManager!");
-        }
-
-        String currentLocation = trainMovementManager.getTrainTracker().getTrainLocation(train.getTrainId());
-        List<String> route = train.getRoute();
-
-        if (!route.contains(cargoDestination)) {
-            throw new IllegalArgumentException("Cargo destination is not in the train's route!");
-        }
+            if (estimatedTime > perishableCargo.getMinutesTillPerish()) {
+                return false; // Will perish in transit, skip it
+            }
 
-        double totalDistance = trainMovementManager.getDistanceBetweenStations(currentLocation, cargoDestination);
-        return (int) Math.ceil(totalDistance / train.getSpeed());
+            train.addCargo(perishableCargo);
+            return true;
+        });
     }
 }
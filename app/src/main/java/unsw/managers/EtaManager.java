@@ -0,0 +1,176 @@
+package unsw.managers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import unsw.trains.CompiledRoute;
+import unsw.trains.Train;
+
+/**
+ * Estimates how many minutes a train will take to reach a station on its route. Estimates follow
+ * the train's compiled route from the station it is at, segment by segment, including the reversal
+ * of linear trains at either end of their route, and stop at every station along the way.
+ *
+ * A train that has started along a segment but not yet arrived is still counted from the station
+ * it left. This overestimates slightly, but keeps an estimate from changing as the train moves, so
+ * a load turned away once stays turned away until the train next arrives somewhere.
+ *
+ * The segments ahead of a train are worked out once per train per minute and cached, so checking
+ * many loads for the same train only walks the route once.
+ */
+public class EtaManager {
+    /**
+     * Returned when a train will never reach a station.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private TrainMovementManager trainMovementManager;
+
+    /**
+     * The segments ahead of each train, valid for the minute they were worked out in.
+     * Trains in independent groups may board in parallel, so the cache is concurrent. A train's
+     * entry is dropped when the train is replaced.
+     */
+    private Map<Train, RouteAhead> routesAhead = new ConcurrentHashMap<>();
+    private volatile long minute;
+
+    /**
+     * The segments a train will travel, in order, until it has visited every station on its route.
+     */
+    private static final class RouteAhead {
+        private final long minute;
+        private final double[] segmentLengths;
+
+        /**
+         * For each station on the route (by position in the route's member handles), the segment
+         * at the end of which the train first arrives there, or -1 if it never does.
+         */
+        private final int[] arrivalSegment;
+
+        /**
+         * The last estimate for each station, and the speed it was made for.
+         */
+        private final double[] estimatedSpeed;
+        private final int[] estimatedMinutes;
+
+        private RouteAhead(long minute, double[] segmentLengths, int[] arrivalSegment) {
+            this.minute = minute;
+            this.segmentLengths = segmentLengths;
+            this.arrivalSegment = arrivalSegment;
+            this.estimatedSpeed = new double[arrivalSegment.length];
+            this.estimatedMinutes = new int[arrivalSegment.length];
+            Arrays.fill(estimatedSpeed, Double.NaN);
+        }
+
+        private int minutesTo(int member, double speed) {
+            int lastSegment = arrivalSegment[member];
+            if (lastSegment == -1)
+                return UNREACHABLE;
+
+            if (estimatedSpeed[member] == speed)
+                return estimatedMinutes[member];
+
+            // A train stops at every station, so each segment takes at least a whole minute
+            int minutes = 0;
+            for (int i = 0; i <= lastSegment; i++) {
+                minutes += Math.max(1, (int) Math.ceil(segmentLengths[i] / speed));
+            }
+
+            estimatedSpeed[member] = speed;
+            estimatedMinutes[member] = minutes;
+            return minutes;
+        }
+    }
+
+    /**
+     * Constructs an EtaManager.
+     *
+     * @param trainMovementManager Manager used to find the distance between stations.
+     */
+    public EtaManager(TrainMovementManager trainMovementManager) {
+        this.trainMovementManager = trainMovementManager;
+    }
+
+    /**
+     * Marks the start of a new minute, after which trains may have moved and cached estimates
+     * are no longer used.
+     */
+    public void startMinute() {
+        minute++;
+    }
+
+    /**
+     * Forgets the segments worked out for a train, for example because it has been replaced.
+     *
+     * @param train The train to forget.
+     */
+    public void remove(Train train) {
+        routesAhead.remove(train);
+    }
+
+    /**
+     * Estimates the minutes until a train arrives at a station, if it took on a load of the given weight now.
+     *
+     * @param train              The train.
+     * @param destinationHandle  Handle of the station to reach.
+     * @param addedWeight        Weight of the load being considered, which slows some trains down.
+     * @return estimated minutes until arrival, or {@link #UNREACHABLE} if the train will not get there.
+     */
+    public int estimateMinutes(Train train, int destinationHandle, int addedWeight) {
+        CompiledRoute route = train.getCompiledRoute();
+        int member = route.memberIndexOf(destinationHandle);
+        if (member == -1 || train.getRouteCursor() == -1)
+            return UNREACHABLE;
+
+        RouteAhead routeAhead = routesAhead.get(train);
+        if (routeAhead == null || routeAhead.minute != minute) {
+            routeAhead = findRouteAhead(train, route);
+            routesAhead.put(train, routeAhead);
+        }
+        return routeAhead.minutesTo(member, train.getSpeedWithAddedWeight(addedWeight));
+    }
+
+    /**
+     * Follows a train's route from its current station until it has visited every station on
+     * the route, or has come back to where it started.
+     *
+     * @param train The train.
+     * @param route The train's compiled route.
+     * @return the segments ahead of the train.
+     */
+    private RouteAhead findRouteAhead(Train train, CompiledRoute route) {
+        boolean isLinear = train.getTrainType().isLinear();
+        boolean isForward = train.isMovingForward();
+        int index = train.getRouteCursor();
+
+        int[] arrivalSegment = new int[route.getMemberHandles().length];
+        Arrays.fill(arrivalSegment, -1);
+        int unvisited = arrivalSegment.length;
+
+        // A linear train is back where it started, facing the same way, after at most twice the route length
+        int maxSegments = 2 * route.size();
+        double[] segmentLengths = new double[maxSegments];
+        int segments = 0;
+
+        while (segments < maxSegments && unvisited > 0) {
+            int next = route.next(index, isLinear, isForward);
+            segmentLengths[segments] = trainMovementManager.getDistanceBetweenStations(route.getStationId(index),
+                    route.getStationId(next));
+
+            int member = route.memberIndexOf(route.getStationHandle(next));
+            if (arrivalSegment[member] == -1) {
+                arrivalSegment[member] = segments;
+                unvisited--;
+            }
+
+            if (isLinear && route.isTerminus(next)) {
+                isForward = !isForward;
+            }
+            index = next;
+            segments++;
+        }
+
+        return new RouteAhead(minute, Arrays.copyOf(segmentLengths, segments), arrivalSegment);
+    }
+}
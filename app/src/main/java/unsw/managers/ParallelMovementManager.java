@@ -0,0 +1,222 @@
+package unsw.managers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import unsw.events.EventBuffer;
+import unsw.stations.Station;
+import unsw.trains.Train;
+
+/**
+ * Runs a per-minute action (such as moving) for every train, using a fork-join pool.
+ * Trains only affect each other through the stations they are at or heading to (boarding,
+ * arrivals and station capacity) and the track between those stations, so trains are
+ * split into groups connected by shared stations. Groups run in parallel, and the trains
+ * within a group run one at a time in train ID order, which gives the same result as
+ * running every train in train ID order on a single thread.
+ */
+public class ParallelMovementManager {
+    /**
+     * Minimum number of independent groups before work is handed to the pool.
+     */
+    private static final int MIN_PARALLEL_GROUPS = 2;
+
+    private TrainMovementManager trainMovementManager;
+    private ForkJoinPool pool;
+
+    /**
+     * Constructs a ParallelMovementManager that runs on the common fork-join pool.
+     *
+     * @param trainMovementManager Manager used to find each train's current and next station.
+     */
+    public ParallelMovementManager(TrainMovementManager trainMovementManager) {
+        this(trainMovementManager, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a ParallelMovementManager that runs on the given pool.
+     *
+     * @param trainMovementManager Manager used to find each train's current and next station.
+     * @param pool                 Pool to run independent groups on.
+     */
+    public ParallelMovementManager(TrainMovementManager trainMovementManager, ForkJoinPool pool) {
+        this.trainMovementManager = trainMovementManager;
+        this.pool = pool;
+    }
+
+    /**
+     * Applies the action to every train. Trains that share a station are handled in the
+     * order given, so the list should be sorted by train ID.
+     *
+     * A train can fail to move by arriving at a full station, after which the trains behind it in
+     * train ID order must not move. A failing group cannot stop the others in time, so a minute in
+     * which some station could run out of room is run one train at a time instead, as it would be
+     * without this manager.
+     *
+     * If the action throws for any other reason, the exception thrown for the train with the lowest
+     * train ID is rethrown once every group has finished.
+     *
+     * Events the groups record, such as tracks wearing down, are held back and written to the
+     * event log once every group has finished, in train ID order.
+     *
+     * @param sortedTrains Trains sorted by train ID.
+     * @param action       Action to apply to each train.
+     */
+    public void forEachTrain(List<Train> sortedTrains, Consumer<Train> action) {
+        List<List<Train>> groups = groupIndependentTrains(sortedTrains);
+        if (groups.size() < MIN_PARALLEL_GROUPS || mayFillStation(sortedTrains)) {
+            for (Train train : sortedTrains) {
+                action.accept(train);
+            }
+            return;
+        }
+
+        Train[] failedTrains = new Train[groups.size()];
+        RuntimeException[] failures = new RuntimeException[groups.size()];
+        EventBuffer[] events = new EventBuffer[groups.size()];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < groups.size(); i++) {
+            int groupIndex = i;
+            events[i] = new EventBuffer();
+            tasks.add(pool.submit(() -> runGroup(groups.get(groupIndex), action, groupIndex, events[groupIndex],
+                    failedTrains, failures)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        EventBuffer.publishInOrder(Arrays.asList(events));
+        rethrowFirstFailure(failedTrains, failures);
+    }
+
+    /**
+     * Splits trains into groups that share no station, keeping the given order within each group.
+     *
+     * @param sortedTrains Trains sorted by train ID.
+     * @return list of independent groups.
+     */
+    private List<List<Train>> groupIndependentTrains(List<Train> sortedTrains) {
+        Map<Object, Object> parents = new HashMap<>();
+        Map<Train, Object> keys = new HashMap<>();
+
+        for (Train train : sortedTrains) {
+            Object key = train;
+            Station current = trainMovementManager.getCurrentStation(train);
+            if (current != null) {
+                key = current;
+                Station next = trainMovementManager.getNextStation(train);
+                if (next != null) {
+                    union(parents, current, next);
+                }
+            }
+            keys.put(train, key);
+        }
+
+        Map<Object, List<Train>> groupsByRoot = new HashMap<>();
+        List<List<Train>> groups = new ArrayList<>();
+        for (Train train : sortedTrains) {
+            Object root = find(parents, keys.get(train));
+            List<Train> group = groupsByRoot.get(root);
+            if (group == null) {
+                group = new ArrayList<>();
+                groupsByRoot.put(root, group);
+                groups.add(group);
+            }
+            group.add(train);
+        }
+        return groups;
+    }
+
+    /**
+     * Checks whether some station might not have room for every train that could arrive at it
+     * this minute. A train could arrive if it has not started its segment yet, or is within the
+     * distance it would cover unloaded, since dropping expired cargo can speed it up.
+     *
+     * @param sortedTrains Trains sorted by train ID.
+     * @return true if a train could arrive at a full station.
+     */
+    private boolean mayFillStation(List<Train> sortedTrains) {
+        Map<Station, Integer> arriving = new IdentityHashMap<>();
+        for (Train train : sortedTrains) {
+            double remaining = train.getRemainingDistance();
+            if (remaining >= 0 && remaining > train.getSpeedWithAddedWeight(-train.getTotalWeight()))
+                continue;
+
+            Station next = trainMovementManager.getNextStation(train);
+            if (next != null) {
+                arriving.merge(next, 1, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<Station, Integer> entry : arriving.entrySet()) {
+            if (!entry.getKey().hasRoomFor(entry.getValue()))
+                return true;
+        }
+        return false;
+    }
+
+    private static void runGroup(List<Train> group, Consumer<Train> action, int groupIndex, EventBuffer events,
+            Train[] failedTrains, RuntimeException[] failures) {
+        events.activate();
+        try {
+            for (Train train : group) {
+                events.startTrain(train.getTrainId());
+                try {
+                    action.accept(train);
+                } catch (RuntimeException e) {
+                    failedTrains[groupIndex] = train;
+                    failures[groupIndex] = e;
+                    return;
+                }
+            }
+        } finally {
+            EventBuffer.deactivate();
+        }
+    }
+
+    private static void rethrowFirstFailure(Train[] failedTrains, RuntimeException[] failures) {
+        int first = -1;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null && (first == -1
+                    || failedTrains[i].getTrainId().compareTo(failedTrains[first].getTrainId()) < 0)) {
+                first = i;
+            }
+        }
+        if (first != -1) {
+            throw failures[first];
+        }
+    }
+
+    private static Object find(Map<Object, Object> parents, Object key) {
+        Object root = key;
+        Object parent = parents.get(root);
+        while (parent != null) {
+            root = parent;
+            parent = parents.get(root);
+        }
+
+        // Path compression
+        Object current = key;
+        while (current != root) {
+            Object next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private static void union(Map<Object, Object> parents, Object a, Object b) {
+        Object rootA = find(parents, a);
+        Object rootB = find(parents, b);
+        if (rootA != rootB) {
+            parents.put(rootB, rootA);
+        }
+    }
+}
@@ -1,12 +1,8 @@
 package unsw.managers;
 
-import unsw.loads.Passenger;
 import unsw.stations.Station;
 import unsw.trains.Train;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Utility class responsible for managing passenger operations including boarding and unloading passengers.
  */
@@ -18,38 +14,31 @@ public class PassengerManager {
      * @param station The station where the train has arrived.
      */
     public static void unloadPassengers(Train train, Station station) {
-        List<Passenger> toUnload = new ArrayList<>();
-        for (Passenger passenger : train.getPassengers()) {
-            if (passenger.getDestination().equals(station.getStationId())) {
-                toUnload.add(passenger);
-            }
-        }
-        for (Passenger passenger : toUnload) {
-            train.removePassenger(passenger);
-        }
+        train.removePassengersFor(station.getHandle());
     }
 
     /**
      * Boards passengers from a station onto a train, if the train supports passenger transport
-     * and has capacity. Passengers are only boarded if their destination is on the train's route.
+     * and has capacity. Passengers are only boarded if their destination is on the train's route,
+     * and only while the train has capacity.
      *
      * @param train   The train to board passengers onto.
      * @param station The station from which passengers are boarding.
      */
     public static void boardPassengers(Train train, Station station) {
-        if (train.getType().equals("CargoTrain")) {
+        if (!train.canCarryPassengers()) {
             return; // Only PassengerTrain & BulletTrain can carry passengers
         }
 
-        List<Passenger> toBoard = new ArrayList<>();
-        for (Passenger passenger : station.getPassengersWaiting()) {
-            if (train.getRoute().contains(passenger.getDestination()) && train.hasCapacity()) {
-                toBoard.add(passenger);
-            }
+        if (station.getPassengersWaiting().isEmpty()) {
+            return; // Nobody to board, avoid allocating every tick
         }
-        for (Passenger passenger : toBoard) {
+
+        // Only the passengers headed somewhere on the route are looked at, and boarding stops
+        // once the train is full, leaving the rest waiting at the station
+        station.boardPassengers(train.getCompiledRoute().getMemberHandles(), train::hasCapacity, passenger -> {
             train.addPassenger(passenger);
-            station.removePassenger(passenger);
-        }
+            return true;
+        });
     }
 }
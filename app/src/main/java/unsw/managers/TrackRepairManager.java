@@ -0,0 +1,63 @@
+package unsw.managers;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import unsw.tracks.Track;
+
+/**
+ * Keeps track of the tracks that are broken and repairs them each minute. A track is added
+ * when it breaks and dropped once it is fully repaired, so repairing costs nothing while every
+ * track is intact, however many tracks there are.
+ *
+ * Tracks may break while trains are moved in parallel, so the tracks are kept in a concurrent map.
+ * It is sorted by track ID, so tracks are repaired, and their repairs logged, in the same order on
+ * every run however the breaks were interleaved.
+ */
+public class TrackRepairManager {
+    private ConcurrentSkipListMap<String, Track> brokenTracks = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records that a track has broken, so that it is repaired from now on.
+     *
+     * @param track The broken track.
+     */
+    public void trackBroken(Track track) {
+        brokenTracks.put(track.getTrackId(), track);
+    }
+
+    /**
+     * Stops repairing a track, for example because it has been replaced.
+     *
+     * @param track The track to forget.
+     */
+    public void remove(Track track) {
+        brokenTracks.remove(track.getTrackId(), track);
+    }
+
+    /**
+     * Repairs every broken track by one step, and drops the tracks that are now fully repaired.
+     */
+    public void repairTracks() {
+        if (brokenTracks.isEmpty())
+            return;
+
+        Iterator<Track> iterator = brokenTracks.values().iterator();
+        while (iterator.hasNext()) {
+            Track track = iterator.next();
+            track.repair();
+            if (!track.isBroken()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tracks currently broken or being repaired.
+     *
+     * @return number of broken tracks.
+     */
+    public int getBrokenTrackCount() {
+        return brokenTracks.size();
+    }
+}
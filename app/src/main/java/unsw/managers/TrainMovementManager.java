@@ -1,15 +1,16 @@
 package unsw.managers;
 
-import unsw.loads.PerishableCargo;
 import unsw.stations.Station;
-import unsw.tracks.BreakableTrack;
 import unsw.tracks.Track;
+import unsw.tracks.TrackIndex;
+import unsw.trains.CompiledRoute;
 import unsw.trains.Train;
 import unsw.trains.TrainTracker;
 import unsw.utils.Position;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages the movement of trains between stations and tracks, handling logic for:
@@ -20,7 +21,14 @@ import java.util.Map;
 public class TrainMovementManager {
     private Map<String, Station> stations;
     private Map<String, Track> tracks;
+    private TrackIndex trackIndex;
     private TrainTracker trainTracker;
+    private EtaManager etaManager;
+
+    /**
+     * Number of station arrivals handled so far, used to detect ticks in which a train arrived.
+     */
+    private AtomicLong arrivalCount = new AtomicLong();
 
     /**
      * Constructs a TrainMovementManager with references to the full system.
@@ -28,13 +36,24 @@ public class TrainMovementManager {
      * @param trains        Map of train ID to Train objects.
      * @param stations      Map of station ID to Station objects.
      * @param tracks        Map of track ID to Track objects.
+     * @param trackIndex    Adjacency index used to find the track between two stations.
      * @param trainTracker  Tracker used to find train locations.
      */
     public TrainMovementManager(Map<String, Train> trains, Map<String, Station> stations, Map<String, Track> tracks,
-            TrainTracker trainTracker) {
+            TrackIndex trackIndex, TrainTracker trainTracker) {
         this.stations = stations;
         this.trainTracker = trainTracker;
         this.tracks = tracks;
+        this.trackIndex = trackIndex;
+    }
+
+    /**
+     * Sets the EtaManager used to estimate delivery times when boarding perishable cargo.
+     *
+     * @param etaManager the EtaManager instance.
+     */
+    public void setEtaManager(EtaManager etaManager) {
+        this.etaManager = etaManager;
     }
 
     /**
@@ -58,53 +77,136 @@ public class TrainMovementManager {
 
         // Handle boarding logic and perishable cargo updates
         if (station != null) {
-            if (train.getType().equals("CargoTrain") || train.getType().equals("BulletTrain")) {
-                for (PerishableCargo cargo : train.getPerishableCargo()) {
-                    cargo.decreaseTime(1);
-                }
-                CargoManager.removeExpiredPerishableCargo(train.getPerishableCargo());
+            if (train.canCarryCargo()) {
+                train.updatePerishableCargo();
             }
 
-            if (train.getType().equals("PassengerTrain") || train.getType().equals("BulletTrain")) {
+            if (train.canCarryPassengers()) {
                 PassengerManager.boardPassengers(train, station);
             }
 
-            if (train.getType().equals("CargoTrain") || train.getType().equals("BulletTrain")) {
-                CargoManager.boardCargo(train, station);
+            if (train.canCarryCargo()) {
+                CargoManager.boardCargo(train, station, etaManager);
             }
         }
 
-        List<String> route = train.getRoute();
-        int currentIndex = route.indexOf(currentLocation);
+        advanceTrain(train);
+    }
+
+    /**
+     * Loads the segment a train is about to travel into its state store, so that minutes
+     * without arrivals or boarding can move it in bulk. Trains that are not on their route
+     * have their segment cleared.
+     *
+     * @param train The train to prepare.
+     */
+    public void loadSegment(Train train) {
+        int currentIndex = train.getRouteCursor();
+        if (currentIndex == -1) {
+            train.clearSegment();
+            return;
+        }
+
+        CompiledRoute route = train.getCompiledRoute();
+        Station nextStation = stations.get(route.getStationId(getNextStationIndex(train, currentIndex)));
+        Track track = trackIndex.get(route.getStationId(currentIndex), nextStation.getStationId());
+        startSegmentIfNeeded(train, nextStation, track);
+        train.loadSegment(train.getSpeed(), track);
+    }
+
+    /**
+     * Returns the station the train is currently heading to.
+     *
+     * @param train The train to check.
+     * @return the next station, or null if the train is not on its route.
+     */
+    public Station getNextStation(Train train) {
+        int currentIndex = train.getRouteCursor();
+        if (currentIndex == -1)
+            return null;
+
+        return stations.get(train.getCompiledRoute().getStationId(getNextStationIndex(train, currentIndex)));
+    }
+
+    /**
+     * Returns the station the train is currently at.
+     *
+     * @param train The train to check.
+     * @return the current station, or null if the train is not at a station.
+     */
+    public Station getCurrentStation(Train train) {
+        return stations.get(trainTracker.getTrainLocation(train.getTrainId()));
+    }
+
+    /**
+     * Returns the number of station arrivals handled so far.
+     *
+     * @return total arrival count.
+     */
+    public long getArrivalCount() {
+        return arrivalCount.get();
+    }
+
+    /**
+     * Moves a train from the station it is at toward the next station on its route,
+     * arriving if it is close enough.
+     *
+     * @param train           The train to move.
+     */
+    private void advanceTrain(Train train) {
+        int currentIndex = train.getRouteCursor();
         if (currentIndex == -1)
             return;
 
+        CompiledRoute route = train.getCompiledRoute();
         int nextIndex = getNextStationIndex(train, currentIndex);
-        String nextStationId = route.get(nextIndex);
+        String nextStationId = route.getStationId(nextIndex);
         Station nextStation = stations.get(nextStationId);
-        Position nextPos = nextStation.getPosition();
         double speed = train.getSpeed();
 
-        Track trackToNextStation = null;
-        for (Track track : tracks.values()) {
-            if (track.connects(currentLocation, nextStationId)) {
-                trackToNextStation = track;
-                break;
-            }
-        }
+        Track trackToNextStation = trackIndex.get(route.getStationId(currentIndex), nextStationId);
 
-        if (trackToNextStation instanceof BreakableTrack && ((BreakableTrack) trackToNextStation).isBroken()) {
+        if (trackToNextStation != null && trackToNextStation.isBroken()) {
             return; // Wait if track is broken
         }
 
-        double dx = nextPos.getX() - train.getPosition().getX();
-        double dy = nextPos.getY() - train.getPosition().getY();
-        double distanceToNext = Math.sqrt(dx * dx + dy * dy);
+        startSegmentIfNeeded(train, nextStation, trackToNextStation);
 
-        if (speed >= distanceToNext) {
-            trainArrivesAtStation(train, nextStation);
+        if (speed >= train.getRemainingDistance()) {
+            trainArrivesAtStation(train, nextStation, nextIndex);
         } else {
-            moveTowards(train, nextPos, speed, distanceToNext);
+            moveTowards(train, speed, trackToNextStation);
+        }
+    }
+
+    /**
+     * Starts the train on the segment to its next station if it is not already travelling it.
+     * The distance and direction come from the track's cached geometry, so they are only
+     * computed when the train stops at a station rather than every minute.
+     *
+     * @param train       The train about to move.
+     * @param nextStation The station the train is heading to.
+     * @param track       Track between the current and next station, or null.
+     */
+    private void startSegmentIfNeeded(Train train, Station nextStation, Track track) {
+        if (train.getRemainingDistance() >= 0)
+            return;
+
+        String nextStationId = nextStation.getStationId();
+        if (track != null) {
+            train.startSegment(track.getLength(), track.getDirectionX(nextStationId),
+                    track.getDirectionY(nextStationId));
+            return;
+        }
+
+        // Segments without a track, such as a bullet train looping back to its first station
+        double dx = nextStation.getPosition().getX() - train.getX();
+        double dy = nextStation.getPosition().getY() - train.getY();
+        double distance = Math.sqrt(dx * dx + dy * dy);
+        if (distance == 0) {
+            train.startSegment(0, 0, 0);
+        } else {
+            train.startSegment(distance, dx / distance, dy / distance);
         }
     }
 
@@ -114,43 +216,42 @@ public class TrainMovementManager {
      *
      * @param train      The arriving train.
      * @param newStation The destination station.
+     * @param newIndex   Route index of the destination station.
      */
-    private void trainArrivesAtStation(Train train, Station newStation) {
+    private void trainArrivesAtStation(Train train, Station newStation, int newIndex) {
+        arrivalCount.incrementAndGet();
         String prevStationId = trainTracker.getTrainLocation(train.getTrainId());
 
         // Find previous track
-        Track previousTrack = null;
-        for (Track track : tracks.values()) {
-            if (track.connects(prevStationId, newStation.getStationId())) {
-                previousTrack = track;
-                break;
-            }
-        }
+        Track previousTrack = trackIndex.get(prevStationId, newStation.getStationId());
 
-        if (previousTrack instanceof BreakableTrack) {
-            BreakableTrack breakableTrack = (BreakableTrack) previousTrack;
-            int totalWeight = train.getTotalWeight();
-            breakableTrack.decreaseDurability(totalWeight);
+        if (previousTrack != null) {
+            previousTrack.decreaseDurability(train.getTotalWeight());
         }
 
         Station currentStation = stations.get(prevStationId);
 
         // Unload based on train type
-        if (train.getType().equals("PassengerTrain") || train.getType().equals("BulletTrain")) {
+        if (train.canCarryPassengers()) {
             PassengerManager.unloadPassengers(train, newStation);
         }
-        if (train.getType().equals("CargoTrain") || train.getType().equals("BulletTrain")) {
+        if (train.canCarryCargo()) {
             CargoManager.unloadCargo(train, newStation);
         }
 
         if (currentStation != null) {
             currentStation.removeTrain(train);
+            trainTracker.recordDeparture(train);
+            train.setRouteCursor(-1);
         }
 
         train.setPosition(newStation.getPosition());
+        train.endSegment();
         newStation.addTrain(train);
+        trainTracker.recordArrival(train, newStation.getStationId());
+        train.setRouteCursor(newIndex);
 
-        if (isLinearTrain(train) && isEndOfRoute(train, newStation)) {
+        if (isLinearTrain(train) && train.getCompiledRoute().isTerminus(newIndex)) {
             train.reverseDirection();
         }
     }
@@ -162,56 +263,23 @@ public class TrainMovementManager {
      * @return true if linear, false otherwise.
      */
     private boolean isLinearTrain(Train train) {
-        return train.getType().equals("PassengerTrain") || train.getType().equals("CargoTrain");
-    }
-
-    /**
-     * Checks if a train is at the end of its route (for reversing direction).
-     *
-     * @param train   The train to check.
-     * @param station The current station.
-     * @return true if train is at start/end of route.
-     */
-    private boolean isEndOfRoute(Train train, Station station) {
-        List<String> route = train.getRoute();
-        return station.getStationId().equals(route.get(0))
-                || station.getStationId().equals(route.get(route.size() - 1));
+        return train.getTrainType().isLinear();
     }
 
     /**
-     * Moves a train toward a destination station, reducing distance based on speed.
-     * Also applies durability reduction if on a breakable track.
+     * Moves a train along its current segment toward the next station.
+     * Also applies durability reduction if on a breakable track. The train's coordinates
+     * are updated in place, so no Position is allocated.
      *
      * @param train           The train to move.
-     * @param nextPos         Position of next station.
      * @param speed           Speed of the train.
-     * @param distanceToNext  Distance to the next station.
+     * @param track           Track between the current and next station, or null.
      */
-    private void moveTowards(Train train, Position nextPos, double speed, double distanceToNext) {
-        if (distanceToNext == 0)
-            return;
-
-        double ratio = Math.min(1, speed / distanceToNext);
-
-        double newX = train.getPosition().getX() + ratio * (nextPos.getX() - train.getPosition().getX());
-        double newY = train.getPosition().getY() + ratio * (nextPos.getY() - train.getPosition().getY());
+    private void moveTowards(Train train, double speed, Track track) {
+        train.travel(speed);
 
-        train.setPosition(new Position(newX, newY));
-
-        String currentLocation = trainTracker.getTrainLocation(train.getTrainId());
-        String nextStationId = train.getRoute()
-                .get(getNextStationIndex(train, train.getRoute().indexOf(currentLocation)));
-
-        Track track = null;
-        for (Track t : tracks.values()) {
-            if (t.connects(currentLocation, nextStationId)) {
-                track = t;
-                break;
-            }
-        }
-
-        if (track instanceof BreakableTrack) {
-            ((BreakableTrack) track).decreaseDurability(0); // Reduce by 1 tick
+        if (track != null) {
+            track.decreaseDurability(0); // Reduce by 1 tick
         }
     }
 
@@ -223,15 +291,7 @@ public class TrainMovementManager {
      * @return Index of the next station.
      */
     private int getNextStationIndex(Train train, int currentIndex) {
-        boolean isLinear = !train.getType().equals("BulletTrain");
-
-        if (isLinear) {
-            return train.isMovingForward()
-                    ? (currentIndex == train.getRoute().size() - 1 ? currentIndex - 1 : currentIndex + 1)
-                    : (currentIndex == 0 ? currentIndex + 1 : currentIndex - 1);
-        } else {
-            return (currentIndex + 1) % train.getRoute().size();
-        }
+        return train.getCompiledRoute().next(currentIndex, isLinearTrain(train), train.isMovingForward());
     }
 
     /**
@@ -259,7 +319,8 @@ public class TrainMovementManager {
     }
 
     /**
-     * Calculates the Euclidean distance between two stations by ID.
+     * Calculates the Euclidean distance between two stations by ID, using the cached
+     * length of the track between them if there is one.
      *
      * @param startStationId Start station ID.
      * @param endStationId   End station ID.
@@ -273,6 +334,10 @@ public class TrainMovementManager {
             throw new IllegalArgumentException("One of the stations does not exist!");
         }
 
+        Track track = trackIndex.get(startStationId, endStationId);
+        if (track != null)
+            return track.getLength();
+
         double dx = end.getPosition().getX() - start.getPosition().getX();
         double dy = end.getPosition().getY() - start.getPosition().getY();
 
@@ -0,0 +1,203 @@
+package unsw.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import unsw.exceptions.InvalidRouteException;
+import unsw.trains.TrainsController;
+import unsw.utils.CommandType;
+
+/**
+ * A call that changes the state of a simulation, recorded so that it can be journaled and
+ * applied again later. Arguments are kept as strings; numbers are written with
+ * {@link Double#toString} and {@link Integer#toString}, which read back exactly.
+ */
+public final class Command {
+    private final CommandType type;
+    private final List<String> args;
+
+    /**
+     * Constructs a command from its type and arguments, such as when reading it back from a journal.
+     *
+     * @param type The kind of command.
+     * @param args The command's arguments, in the order {@link #applyTo} expects.
+     */
+    public Command(CommandType type, List<String> args) {
+        this.type = type;
+        this.args = Collections.unmodifiableList(new ArrayList<>(args));
+    }
+
+    private Command(CommandType type, String... args) {
+        this(type, Arrays.asList(args));
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#createStation}.
+     *
+     * @param stationId ID of the station.
+     * @param type      Station type.
+     * @param x         X-coordinate.
+     * @param y         Y-coordinate.
+     * @return the command.
+     */
+    public static Command createStation(String stationId, String type, double x, double y) {
+        return new Command(CommandType.CREATE_STATION, stationId, type, Double.toString(x), Double.toString(y));
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#createTrack}.
+     *
+     * @param trackId       Track identifier.
+     * @param fromStationId Origin station ID.
+     * @param toStationId   Destination station ID.
+     * @param isBreakable   True for a breakable track.
+     * @return the command.
+     */
+    public static Command createTrack(String trackId, String fromStationId, String toStationId,
+            boolean isBreakable) {
+        return new Command(isBreakable ? CommandType.CREATE_BREAKABLE_TRACK : CommandType.CREATE_TRACK, trackId,
+                fromStationId, toStationId);
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#createTrain}.
+     *
+     * @param trainId   ID of the train.
+     * @param type      Type of the train.
+     * @param stationId Starting station ID.
+     * @param route     Ordered list of station IDs forming the route.
+     * @return the command.
+     */
+    public static Command createTrain(String trainId, String type, String stationId, List<String> route) {
+        List<String> args = new ArrayList<>(List.of(trainId, type, stationId));
+        args.addAll(route);
+        return new Command(CommandType.CREATE_TRAIN, args);
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#createCargo}.
+     *
+     * @param startStationId Start station ID.
+     * @param destStationId  Destination station ID.
+     * @param cargoId        Cargo ID.
+     * @param weight         Weight of the cargo.
+     * @return the command.
+     */
+    public static Command createCargo(String startStationId, String destStationId, String cargoId, int weight) {
+        return new Command(CommandType.CREATE_CARGO, startStationId, destStationId, cargoId,
+                Integer.toString(weight));
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#createPerishableCargo}.
+     *
+     * @param startStationId Start station ID.
+     * @param destStationId  Destination station ID.
+     * @param cargoId        Cargo ID.
+     * @param weight         Weight of the cargo.
+     * @param minsTillPerish Minutes until the cargo expires.
+     * @return the command.
+     */
+    public static Command createPerishableCargo(String startStationId, String destStationId, String cargoId,
+            int weight, int minsTillPerish) {
+        return new Command(CommandType.CREATE_PERISHABLE_CARGO, startStationId, destStationId, cargoId,
+                Integer.toString(weight), Integer.toString(minsTillPerish));
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#createPassenger}.
+     *
+     * @param startStationId Start station ID.
+     * @param destStationId  Destination station ID.
+     * @param passengerId    Passenger ID.
+     * @param isMechanic     True if the passenger is a mechanic.
+     * @return the command.
+     */
+    public static Command createPassenger(String startStationId, String destStationId, String passengerId,
+            boolean isMechanic) {
+        return new Command(isMechanic ? CommandType.CREATE_MECHANIC : CommandType.CREATE_PASSENGER, startStationId,
+                destStationId, passengerId);
+    }
+
+    /**
+     * Creates a command for {@link TrainsController#simulate(int)}.
+     *
+     * @param minutes Number of minutes to simulate.
+     * @return the command.
+     */
+    public static Command simulate(int minutes) {
+        return new Command(CommandType.SIMULATE, Integer.toString(minutes));
+    }
+
+    /**
+     * Returns the kind of command.
+     *
+     * @return command type.
+     */
+    public CommandType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the command's arguments.
+     *
+     * @return unmodifiable list of arguments.
+     */
+    public List<String> getArgs() {
+        return args;
+    }
+
+    /**
+     * Applies the command to a controller, making the call it records.
+     *
+     * @param controller The controller to apply to.
+     * @throws InvalidRouteException if the command creates a train with an invalid route.
+     */
+    public void applyTo(TrainsController controller) throws InvalidRouteException {
+        switch (type) {
+        case CREATE_STATION:
+            controller.createStation(args.get(0), args.get(1), Double.parseDouble(args.get(2)),
+                    Double.parseDouble(args.get(3)));
+            break;
+        case CREATE_TRACK:
+            controller.createTrack(args.get(0), args.get(1), args.get(2));
+            break;
+        case CREATE_BREAKABLE_TRACK:
+            controller.createTrack(args.get(0), args.get(1), args.get(2), true);
+            break;
+        case CREATE_TRAIN:
+            controller.createTrain(args.get(0), args.get(1), args.get(2), args.subList(3, args.size()));
+            break;
+        case CREATE_CARGO:
+            controller.createCargo(args.get(0), args.get(1), args.get(2), Integer.parseInt(args.get(3)));
+            break;
+        case CREATE_PERISHABLE_CARGO:
+            controller.createPerishableCargo(args.get(0), args.get(1), args.get(2), Integer.parseInt(args.get(3)),
+                    Integer.parseInt(args.get(4)));
+            break;
+        case CREATE_PASSENGER:
+            controller.createPassenger(args.get(0), args.get(1), args.get(2));
+            break;
+        case CREATE_MECHANIC:
+            controller.createPassenger(args.get(0), args.get(1), args.get(2), true);
+            break;
+        case SIMULATE:
+            controller.simulate(Integer.parseInt(args.get(0)));
+            break;
+        default:
+            throw new IllegalStateException("Unknown command: " + type);
+        }
+    }
+
+    /**
+     * Returns the command as text, such as {@code CREATE_STATION [s1, PassengerStation, 0.0, 0.0]}.
+     *
+     * @return text form of the command.
+     */
+    @Override
+    public String toString() {
+        return type + " " + args;
+    }
+}
@@ -0,0 +1,454 @@
+package unsw.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+import unsw.exceptions.InvalidRouteException;
+import unsw.trains.TrainsController;
+import unsw.utils.CommandType;
+
+/**
+ * A write-ahead journal of the commands applied to a simulation, kept alongside snapshots of it
+ * so that the simulation can be rebuilt after the process dies.
+ *
+ * The directory holds numbered generations: {@code snapshot-N.bin} is the state at the start
+ * of generation N, and {@code journal-N.log} the commands applied since. Recovery loads the
+ * newest snapshot and replays every journal from its generation on. A checkpoint starts a new
+ * journal before writing the snapshot for it, so a crash part way through still recovers from
+ * the previous snapshot and both journals.
+ *
+ * Appends are written and forced to disk by a background thread, which takes every record
+ * queued since its last write and forces them with a single fsync (group commit). Each record
+ * is framed by its length and a CRC32 of its contents, so a record torn by a crash is detected
+ * and dropped, along with anything after it.
+ *
+ * If a batch cannot be written or forced, the journal is cut back to where the batch started and
+ * stops accepting appends, since later records could no longer be recovered in order. The futures
+ * of that batch, and of anything queued after it, complete exceptionally.
+ */
+public class CommandJournal implements AutoCloseable {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    /**
+     * Length of the payload and its CRC32, written before each record.
+     */
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    /**
+     * A record waiting to be written, and the future completed once it is on disk.
+     */
+    private static final class Pending {
+        private final byte[] record;
+        private final CompletableFuture<Void> durable = new CompletableFuture<>();
+
+        private Pending(byte[] record) {
+            this.record = record;
+        }
+    }
+
+    /**
+     * Queued by {@link #close()} to stop the flusher once every earlier record is written.
+     */
+    private static final Pending STOP = new Pending(new byte[0]);
+
+    private final Path directory;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    /**
+     * Generation and file currently appended to. Guarded by {@link #channelLock}, since a
+     * checkpoint switches them while the flusher may be writing. Appends only need {@code this},
+     * so they are not held up while a batch is being forced to disk.
+     */
+    private final Object channelLock = new Object();
+    private long generation;
+    private FileChannel channel;
+
+    private CompletableFuture<Void> lastAppended = CompletableFuture.completedFuture(null);
+    private volatile boolean closed;
+
+    /**
+     * Why a batch could not be written, or null while every batch has been.
+     */
+    private volatile IOException failure;
+
+    private CommandJournal(Path directory, long generation, FileChannel channel) {
+        this.directory = directory;
+        this.generation = generation;
+        this.channel = channel;
+        this.flusher = new Thread(this::runFlusher, "command-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Opens the journal in a directory, creating the directory if needed. Any torn record at the
+     * end of the current journal is cut off, so new records follow the last complete one.
+     *
+     * @param directory Directory holding the snapshots and journals.
+     * @return the open journal.
+     * @throws IOException if the directory or journal cannot be opened.
+     */
+    public static CommandJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        long generation = Math.max(0, Math.max(latestGeneration(directory, JOURNAL_PREFIX, JOURNAL_SUFFIX),
+                latestGeneration(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)));
+
+        Path journalPath = journalPath(directory, generation);
+        long validLength = Files.exists(journalPath) ? readJournal(journalPath, null) : 0;
+        FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        return new CommandJournal(directory, generation, channel);
+    }
+
+    /**
+     * Rebuilds the simulation from the newest snapshot and the journals written since. Commands
+     * are applied exactly as they were the first time, so commands that failed then fail again
+     * here and are skipped.
+     *
+     * @return a controller holding the recovered state.
+     * @throws IOException if a snapshot or journal cannot be read.
+     */
+    public TrainsController recover() throws IOException {
+        long snapshotGeneration = latestGeneration(directory, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TrainsController controller = snapshotGeneration >= 0
+                ? SnapshotFile.read(snapshotPath(directory, snapshotGeneration))
+                : new TrainsController();
+
+        long currentGeneration;
+        synchronized (channelLock) {
+            currentGeneration = generation;
+        }
+
+        List<Command> commands = new ArrayList<>();
+        for (long g = Math.max(0, snapshotGeneration); g <= currentGeneration; g++) {
+            Path journalPath = journalPath(directory, g);
+            if (Files.exists(journalPath)) {
+                readJournal(journalPath, commands);
+            }
+        }
+
+        for (Command command : commands) {
+            try {
+                command.applyTo(controller);
+            } catch (InvalidRouteException | RuntimeException e) {
+                continue; // Failed the same way when it was first applied
+            }
+        }
+        return controller;
+    }
+
+    /**
+     * Appends a command to the journal. The caller should apply the command after appending it,
+     * in the same order as other appends, and wait on the returned future before reporting
+     * the command as done.
+     *
+     * @param command The command to append.
+     * @return a future completed once the command is on disk.
+     * @throws IllegalStateException if the journal is closed, or an earlier batch could not be written.
+     */
+    public synchronized CompletableFuture<Void> append(Command command) {
+        if (closed) {
+            throw new IllegalStateException("The journal is closed.");
+        }
+        if (failure != null) {
+            throw new IllegalStateException("The journal could not be written.", failure);
+        }
+
+        Pending pending = new Pending(encode(command));
+        queue.add(pending);
+        lastAppended = pending.durable;
+        return pending.durable;
+    }
+
+    /**
+     * Writes a snapshot of the simulation and starts a new journal, then deletes the snapshots
+     * and journals it replaces. No commands may be appended or applied while this runs.
+     *
+     * @param controller The simulation, holding every command appended so far.
+     * @throws IOException if the snapshot cannot be written, or an earlier batch could not be.
+     */
+    public synchronized void checkpoint(TrainsController controller) throws IOException {
+        lastAppended.exceptionally(e -> null).join();
+        if (failure != null) {
+            throw new IOException("The journal could not be written.", failure);
+        }
+
+        long snapshotGeneration;
+        synchronized (channelLock) {
+            long nextGeneration = generation + 1;
+            FileChannel nextChannel = FileChannel.open(journalPath(directory, nextGeneration),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.close();
+            channel = nextChannel;
+            generation = nextGeneration;
+            snapshotGeneration = nextGeneration;
+        }
+
+        SnapshotFile.write(controller, snapshotPath(directory, snapshotGeneration));
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                long g = Math.max(parseGeneration(file, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX),
+                        parseGeneration(file, JOURNAL_PREFIX, JOURNAL_SUFFIX));
+                if (g >= 0 && g < snapshotGeneration) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes every appended command, then closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+            queue.add(STOP);
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (channelLock) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Writes queued records in batches, forcing each batch to disk with one fsync.
+     */
+    private void runFlusher() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue; // Only stopped through close()
+            }
+            queue.drainTo(batch);
+
+            boolean stop = batch.remove(STOP);
+            if (failure == null) {
+                writeBatch(batch);
+            }
+
+            IOException batchFailure = failure;
+            if (batchFailure == null) {
+                batch.forEach(pending -> pending.durable.complete(null));
+            } else {
+                batch.forEach(pending -> pending.durable.completeExceptionally(batchFailure));
+            }
+
+            batch.clear();
+            if (stop)
+                return;
+        }
+    }
+
+    /**
+     * Writes a batch of records and forces them to disk. If that fails, the journal is cut back
+     * to where the batch started, so that none of it is recovered, and marked as failed.
+     */
+    private void writeBatch(List<Pending> batch) {
+        synchronized (channelLock) {
+            long batchStart = -1;
+            try {
+                batchStart = channel.position();
+                for (Pending pending : batch) {
+                    ByteBuffer record = ByteBuffer.wrap(pending.record);
+                    while (record.hasRemaining()) {
+                        channel.write(record);
+                    }
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                if (batchStart >= 0) {
+                    try {
+                        channel.truncate(batchStart);
+                        channel.force(false);
+                    } catch (IOException truncateFailure) {
+                        e.addSuppressed(truncateFailure);
+                    }
+                }
+                failure = e;
+            }
+        }
+    }
+
+    /**
+     * Encodes a command as a framed record: payload length, CRC32 of the payload, then the
+     * command type and each argument as length-prefixed UTF-8.
+     */
+    private static byte[] encode(Command command) {
+        List<byte[]> parts = new ArrayList<>();
+        parts.add(command.getType().name().getBytes(StandardCharsets.UTF_8));
+        for (String arg : command.getArgs()) {
+            parts.add(arg.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int payloadLength = Integer.BYTES;
+        for (byte[] part : parts) {
+            payloadLength += Integer.BYTES + part.length;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payloadLength);
+        record.putInt(payloadLength);
+        record.putInt(0); // CRC, filled in below
+        record.putInt(command.getArgs().size());
+        for (byte[] part : parts) {
+            record.putInt(part.length);
+            record.put(part);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), HEADER_BYTES, payloadLength);
+        record.putInt(Integer.BYTES, (int) crc.getValue());
+        return record.array();
+    }
+
+    /**
+     * Reads the complete records of a journal, stopping at the first torn or corrupt record.
+     *
+     * @param path     Journal to read.
+     * @param commands List to add the commands read to, or null to only find where they end.
+     * @return length of the journal up to the end of its last complete record.
+     * @throws IOException if the journal cannot be read.
+     */
+    private static long readJournal(Path path, List<Command> commands) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc = new CRC32();
+
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int payloadLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (payloadLength < Integer.BYTES || payloadLength > buffer.remaining()) {
+                return start;
+            }
+
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), payloadLength);
+            if ((int) crc.getValue() != expectedCrc) {
+                return start;
+            }
+
+            ByteBuffer payload = buffer.slice();
+            payload.limit(payloadLength);
+            buffer.position(buffer.position() + payloadLength);
+            if (commands != null) {
+                commands.add(decode(payload));
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Reads the complete commands in a journal file, ignoring any torn record at its end.
+     *
+     * @param path Journal to read.
+     * @return the commands, in the order they were appended.
+     * @throws IOException if the journal cannot be read.
+     */
+    public static List<Command> readCommands(Path path) throws IOException {
+        List<Command> commands = new ArrayList<>();
+        readJournal(path, commands);
+        return commands;
+    }
+
+    private static Command decode(ByteBuffer payload) {
+        int argCount = payload.getInt();
+        CommandType type = CommandType.valueOf(readString(payload));
+        List<String> args = new ArrayList<>(argCount);
+        for (int i = 0; i < argCount; i++) {
+            args.add(readString(payload));
+        }
+        return new Command(type, args);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getInt()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    static Path journalPath(Path directory, long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Returns the generations of the journals in a directory, oldest first.
+     */
+    static List<Long> journalGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                long generation = parseGeneration(file, JOURNAL_PREFIX, JOURNAL_SUFFIX);
+                if (generation >= 0) {
+                    generations.add(generation);
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    /**
+     * Returns the highest generation of the files with the given prefix and suffix, or -1 if there are none.
+     */
+    private static long latestGeneration(Path directory, String prefix, String suffix) throws IOException {
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                latest = Math.max(latest, parseGeneration(file, prefix, suffix));
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Returns the generation in a file name such as {@code journal-3.log}, or -1 if it does not match.
+     */
+    private static long parseGeneration(Path file, String prefix, String suffix) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(prefix) || !name.endsWith(suffix) || name.length() <= prefix.length() + suffix.length())
+            return -1;
+
+        String digits = name.substring(prefix.length(), name.length() - suffix.length());
+        for (int i = 0; i < digits.length(); i++) {
+            if (!Character.isDigit(digits.charAt(i)))
+                return -1;
+        }
+        return Long.parseLong(digits);
+    }
+}
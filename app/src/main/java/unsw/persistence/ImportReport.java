@@ -0,0 +1,96 @@
+package unsw.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk network import: how many stations, tracks and trains were created, and
+ * what was wrong with the records that were skipped. Only the first
+ * {@link #MAX_REPORTED_ERRORS} errors are kept, but every error is counted.
+ */
+public final class ImportReport {
+    /**
+     * Maximum number of error messages kept, so a badly broken file gives a short report.
+     */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private int stationsCreated;
+    private int tracksCreated;
+    private int trainsCreated;
+    private int errorCount;
+    private final List<String> errors = new ArrayList<>();
+
+    /**
+     * Returns the number of stations created.
+     *
+     * @return station count.
+     */
+    public int getStationsCreated() {
+        return stationsCreated;
+    }
+
+    /**
+     * Returns the number of tracks created.
+     *
+     * @return track count.
+     */
+    public int getTracksCreated() {
+        return tracksCreated;
+    }
+
+    /**
+     * Returns the number of trains created.
+     *
+     * @return train count.
+     */
+    public int getTrainsCreated() {
+        return trainsCreated;
+    }
+
+    /**
+     * Returns the number of records skipped because of an error.
+     *
+     * @return error count.
+     */
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Returns the first errors found, each prefixed with where in the input it was found.
+     *
+     * @return unmodifiable list of error messages.
+     */
+    public List<String> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Checks if every record was imported.
+     *
+     * @return true if there were no errors.
+     */
+    public boolean isSuccessful() {
+        return errorCount == 0;
+    }
+
+    void stationCreated() {
+        stationsCreated++;
+    }
+
+    void trackCreated() {
+        tracksCreated++;
+    }
+
+    void trainCreated() {
+        trainsCreated++;
+    }
+
+    void addError(String location, String message) {
+        errorCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(location + ": " + message);
+        }
+    }
+}
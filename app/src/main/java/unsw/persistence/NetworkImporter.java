@@ -0,0 +1,321 @@
+package unsw.persistence;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import unsw.exceptions.InvalidRouteException;
+import unsw.trains.TrainsController;
+import unsw.utils.StationType;
+import unsw.utils.TrainType;
+
+/**
+ * Loads stations, tracks and trains into a simulation in bulk, from a JSON or CSV network
+ * definition. Input is read one record at a time, so large definitions are never held in
+ * memory whole.
+ *
+ * Each record is checked against the simulation before it is applied, using the same rules as
+ * the create calls and the controller's track index for routes, so a record that would fail is
+ * reported and skipped without throwing. Records are applied in the order they appear, so
+ * stations must come before the tracks between them, and tracks before the trains that use them.
+ *
+ * A JSON definition is an object with {@code stations}, {@code tracks} and {@code trains}
+ * arrays, whose records have the same keys as the create API calls. A track's {@code type} is
+ * optional and defaults to {@code NORMAL}. A CSV definition has one record per line:
+ * <pre>
+ * station,&lt;stationId&gt;,&lt;type&gt;,&lt;x&gt;,&lt;y&gt;
+ * track,&lt;trackId&gt;,&lt;fromStationId&gt;,&lt;toStationId&gt;[,NORMAL|UNBROKEN]
+ * train,&lt;trainId&gt;,&lt;type&gt;,&lt;stationId&gt;,&lt;route station&gt;,...
+ * </pre>
+ * Blank lines and lines starting with {@code #} are ignored. Fields cannot contain commas.
+ */
+public class NetworkImporter {
+    private static final Pattern NUMBER = Pattern.compile("[-+]?(\\d+(\\.\\d*)?|\\.\\d+)([eE][-+]?\\d+)?");
+
+    private final TrainsController controller;
+    private final Consumer<Command> commandListener;
+    private ImportReport report;
+
+    /**
+     * Constructs an importer that loads into a simulation.
+     *
+     * @param controller The simulation to load into.
+     */
+    public NetworkImporter(TrainsController controller) {
+        this(controller, command -> {
+        });
+    }
+
+    /**
+     * Constructs an importer that loads into a simulation, and passes every command it applies
+     * to a listener first, such as to journal it.
+     *
+     * @param controller      The simulation to load into.
+     * @param commandListener Called with each command just before it is applied.
+     */
+    public NetworkImporter(TrainsController controller, Consumer<Command> commandListener) {
+        this.controller = controller;
+        this.commandListener = commandListener;
+    }
+
+    /**
+     * Imports a definition file, read as CSV if its name ends in {@code .csv} and as JSON otherwise.
+     *
+     * @param path File to import.
+     * @return what was imported, and what was skipped.
+     * @throws IOException if the file cannot be read.
+     */
+    public ImportReport importFile(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return path.getFileName().toString().endsWith(".csv") ? importCsv(reader) : importJson(reader);
+        }
+    }
+
+    /**
+     * Imports a JSON network definition. If the JSON itself is malformed or ends early, including
+     * when the input is empty, the records before the fault are kept and the fault is reported as
+     * the last error.
+     *
+     * @param in Definition to read.
+     * @return what was imported, and what was skipped.
+     * @throws IOException if the input cannot be read.
+     */
+    public ImportReport importJson(Reader in) throws IOException {
+        report = new ImportReport();
+        JsonReader reader = new JsonReader(in);
+        try {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String section = reader.nextName();
+                if (!section.equals("stations") && !section.equals("tracks") && !section.equals("trains")) {
+                    report.addError(reader.getPath(), "Unknown section: " + section);
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    String location = reader.getPath();
+                    Map<String, String> fields = new HashMap<>();
+                    List<String> route = new ArrayList<>();
+                    if (readJsonRecord(reader, location, fields, route)) {
+                        importRecord(location, section, fields, route);
+                    }
+                }
+                reader.endArray();
+            }
+            reader.endObject();
+        } catch (MalformedJsonException | IllegalStateException e) {
+            report.addError(reader.getPath(), "Malformed JSON: " + e.getMessage());
+        } catch (EOFException e) {
+            report.addError(reader.getPath(), "Truncated JSON: " + e.getMessage());
+        }
+        return report;
+    }
+
+    /**
+     * Imports a CSV network definition.
+     *
+     * @param in Definition to read.
+     * @return what was imported, and what was skipped.
+     * @throws IOException if the input cannot be read.
+     */
+    public ImportReport importCsv(Reader in) throws IOException {
+        report = new ImportReport();
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] columns = line.split(",", -1);
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = columns[i].trim();
+            }
+
+            String location = "line " + lineNumber;
+            String kind = columns[0];
+            Map<String, String> fields = new HashMap<>();
+            List<String> route = new ArrayList<>();
+            if (kind.equals("station") && columns.length == 5) {
+                fields.put("stationId", columns[1]);
+                fields.put("type", columns[2]);
+                fields.put("x", columns[3]);
+                fields.put("y", columns[4]);
+                importRecord(location, "stations", fields, route);
+            } else if (kind.equals("track") && (columns.length == 4 || columns.length == 5)) {
+                fields.put("trackId", columns[1]);
+                fields.put("fromStationId", columns[2]);
+                fields.put("toStationId", columns[3]);
+                if (columns.length == 5) {
+                    fields.put("type", columns[4]);
+                }
+                importRecord(location, "tracks", fields, route);
+            } else if (kind.equals("train") && columns.length >= 5) {
+                fields.put("trainId", columns[1]);
+                fields.put("type", columns[2]);
+                fields.put("stationId", columns[3]);
+                route.addAll(Arrays.asList(columns).subList(4, columns.length));
+                importRecord(location, "trains", fields, route);
+            } else if (kind.equals("station") || kind.equals("track") || kind.equals("train")) {
+                report.addError(location, "Wrong number of fields for a " + kind);
+            } else {
+                report.addError(location, "Unknown record type: " + kind);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Reads one record object, putting its scalar fields in {@code fields} and its route, if any,
+     * in {@code route}. Values of the wrong kind are skipped and reported.
+     *
+     * @return true if the record is well formed.
+     */
+    private boolean readJsonRecord(JsonReader reader, String location, Map<String, String> fields,
+            List<String> route) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            report.addError(location, "Expected an object");
+            return false;
+        }
+
+        boolean wellFormed = true;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                fields.put(name, reader.nextString());
+            } else if (token == JsonToken.NULL) {
+                reader.nextNull();
+            } else if (token == JsonToken.BEGIN_ARRAY && name.equals("route")) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    if (reader.peek() == JsonToken.STRING) {
+                        route.add(reader.nextString());
+                    } else {
+                        reader.skipValue();
+                        wellFormed = false;
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+                wellFormed = false;
+            }
+        }
+        reader.endObject();
+
+        if (!wellFormed) {
+            report.addError(location, "Unexpected value in record");
+        }
+        return wellFormed;
+    }
+
+    /**
+     * Checks a record of the given section and applies it if it is valid.
+     */
+    private void importRecord(String location, String section, Map<String, String> fields, List<String> route) {
+        switch (section) {
+        case "stations":
+            importStation(location, fields.get("stationId"), fields.get("type"), fields.get("x"), fields.get("y"));
+            break;
+        case "tracks":
+            importTrack(location, fields.get("trackId"), fields.get("fromStationId"), fields.get("toStationId"),
+                    fields.get("type"));
+            break;
+        default:
+            importTrain(location, fields.get("trainId"), fields.get("type"), fields.get("stationId"), route);
+            break;
+        }
+    }
+
+    private void importStation(String location, String stationId, String type, String x, String y) {
+        if (isBlank(stationId)) {
+            report.addError(location, "Missing stationId");
+        } else if (type == null || StationType.fromName(type) == null) {
+            report.addError(location, "Invalid station type: " + type);
+        } else if (!isNumber(x) || !isNumber(y)) {
+            report.addError(location, "Invalid position for station " + stationId);
+        } else if (apply(location, Command.createStation(stationId, type, Double.parseDouble(x),
+                Double.parseDouble(y)))) {
+            report.stationCreated();
+        }
+    }
+
+    private void importTrack(String location, String trackId, String fromStationId, String toStationId,
+            String type) {
+        boolean isBreakable = "UNBROKEN".equals(type);
+        if (isBlank(trackId)) {
+            report.addError(location, "Missing trackId");
+        } else if (type != null && !isBreakable && !type.equals("NORMAL")) {
+            report.addError(location, "Invalid type: " + type);
+        } else if (!controller.hasStation(fromStationId) || !controller.hasStation(toStationId)) {
+            report.addError(location, "One or both station IDs do not exist!");
+        } else if (controller.isConnected(fromStationId, toStationId)) {
+            report.addError(location, "A track already exists between these stations.");
+        } else if (apply(location, Command.createTrack(trackId, fromStationId, toStationId, isBreakable))) {
+            report.trackCreated();
+        }
+    }
+
+    private void importTrain(String location, String trainId, String type, String stationId, List<String> route) {
+        TrainType trainType = type == null ? null : TrainType.fromName(type);
+        if (isBlank(trainId)) {
+            report.addError(location, "Missing trainId");
+        } else if (!controller.hasStation(stationId)) {
+            report.addError(location, "Station does not exist: " + stationId);
+        } else if (trainType == null) {
+            report.addError(location, "Invalid train type: " + type);
+        } else if (!controller.isValidRoute(route, trainType)) {
+            report.addError(location, "Invalid route for train type: " + type);
+        } else if (controller.isStationFull(stationId)) {
+            report.addError(location, "Station " + stationId + " is full and cannot accept more trains.");
+        } else if (apply(location, Command.createTrain(trainId, type, stationId, route))) {
+            report.trainCreated();
+        }
+    }
+
+    /**
+     * Applies a command that has already been checked, reporting it if it fails anyway.
+     *
+     * @return true if the command was applied.
+     */
+    private boolean apply(String location, Command command) {
+        commandListener.accept(command);
+        try {
+            command.applyTo(controller);
+            return true;
+        } catch (InvalidRouteException | RuntimeException e) {
+            report.addError(location, e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static boolean isNumber(String value) {
+        return value != null && NUMBER.matcher(value).matches();
+    }
+}
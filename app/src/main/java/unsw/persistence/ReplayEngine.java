@@ -0,0 +1,195 @@
+package unsw.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import unsw.exceptions.InvalidRouteException;
+import unsw.trains.TrainsController;
+import unsw.utils.CommandType;
+import unsw.utils.SimulationMode;
+
+/**
+ * Replays a recorded stream of commands against a new simulation, to reproduce the state of
+ * the network at a given minute. Ticks are counted as the recorded simulation counted its minutes,
+ * so replay from a snapshot starts at the minute the snapshot was taken.
+ *
+ * The simulation runs in {@link SimulationMode#NEXT_EVENT} mode, which gives the same results as
+ * stepping every minute, with trains moved one at a time in train ID order as they were when
+ * recorded. A recorded {@code simulate(length)} is split where needed, so replay can stop part way
+ * through one; when running to a tick, quiet stretches are still skipped in a single call rather
+ * than a minute at a time. A simulate that threw when it was recorded throws at the same minute
+ * on replay, and the rest of it is skipped just as it was then.
+ */
+public class ReplayEngine {
+    private final TrainsController controller;
+    private final List<Command> commands;
+
+    private int nextCommand;
+    private int minutesIntoCommand;
+    private int tick;
+
+    /**
+     * Constructs an engine that replays commands from an empty simulation.
+     *
+     * @param commands The recorded commands, in the order they were applied.
+     */
+    public ReplayEngine(List<Command> commands) {
+        this(new TrainsController(), commands);
+    }
+
+    /**
+     * Constructs an engine that replays commands from a saved state.
+     *
+     * @param controller The state the commands were first applied to.
+     * @param commands   The recorded commands, in the order they were applied.
+     */
+    public ReplayEngine(TrainsController controller, List<Command> commands) {
+        this.controller = controller;
+        this.commands = new ArrayList<>(commands);
+        controller.setSimulationMode(SimulationMode.NEXT_EVENT);
+        controller.setParallelMovement(false);
+        this.tick = (int) controller.getMinutesSimulated();
+    }
+
+    /**
+     * Creates an engine for the history kept in a {@link CommandJournal} directory. Replay starts
+     * from the snapshot taken when the oldest remaining journal was started, or from an empty
+     * simulation if the directory still holds the first journal. Ticks carry on from the minute that
+     * state was saved at.
+     *
+     * @param directory Directory holding the snapshots and journals.
+     * @return the engine, positioned before the first command.
+     * @throws IOException if the files cannot be read, or the oldest journal has no snapshot.
+     */
+    public static ReplayEngine fromDirectory(Path directory) throws IOException {
+        List<Long> generations = CommandJournal.journalGenerations(directory);
+        if (generations.isEmpty()) {
+            throw new IOException("No journal in " + directory);
+        }
+
+        long oldest = generations.get(0);
+        Path snapshot = CommandJournal.snapshotPath(directory, oldest);
+        TrainsController controller;
+        if (Files.exists(snapshot)) {
+            controller = SnapshotFile.read(snapshot);
+        } else if (oldest == 0) {
+            controller = new TrainsController();
+        } else {
+            throw new IOException("No snapshot for the oldest journal in " + directory);
+        }
+
+        List<Command> commands = new ArrayList<>();
+        for (long generation : generations) {
+            commands.addAll(CommandJournal.readCommands(CommandJournal.journalPath(directory, generation)));
+        }
+        return new ReplayEngine(controller, commands);
+    }
+
+    /**
+     * Returns the simulation being replayed into.
+     *
+     * @return the controller.
+     */
+    public TrainsController getController() {
+        return controller;
+    }
+
+    /**
+     * Returns the number of minutes simulated so far.
+     *
+     * @return current tick.
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the number of commands fully applied so far.
+     *
+     * @return index of the next command.
+     */
+    public int getCommandIndex() {
+        return nextCommand;
+    }
+
+    /**
+     * Checks if every command in the stream has been applied.
+     *
+     * @return true if the replay is finished.
+     */
+    public boolean isFinished() {
+        return nextCommand == commands.size();
+    }
+
+    /**
+     * Replays until the given tick. Commands recorded at that tick, before the simulation moved
+     * on, are applied too. Stops early if the stream ends first.
+     *
+     * @param targetTick The tick to stop at; nothing is done if it has already passed.
+     */
+    public void fastForwardTo(int targetTick) {
+        replay(targetTick, null);
+    }
+
+    /**
+     * Replays until a condition holds, checking it after every command and every simulated minute.
+     *
+     * @param event   The condition to stop at, such as a track breaking.
+     * @param maxTick The tick to give up at.
+     * @return true if the condition was met, false if the tick limit or the end of the stream came first.
+     */
+    public boolean runUntil(Predicate<TrainsController> event, int maxTick) {
+        return replay(maxTick, event);
+    }
+
+    /**
+     * Applies commands until the target tick is reached, or the event occurs if one is given.
+     */
+    private boolean replay(int targetTick, Predicate<TrainsController> event) {
+        while (nextCommand < commands.size()) {
+            Command command = commands.get(nextCommand);
+            if (command.getType() == CommandType.SIMULATE) {
+                int remaining = Math.max(0, Integer.parseInt(command.getArgs().get(0))) - minutesIntoCommand;
+                if (remaining > 0) {
+                    if (tick >= targetTick) {
+                        return false;
+                    }
+
+                    // Without an event to watch for, the whole stretch can be simulated in one call
+                    int minutes = event == null ? Math.min(remaining, targetTick - tick) : 1;
+                    long minutesBefore = controller.getMinutesSimulated();
+                    try {
+                        controller.simulate(minutes);
+                        minutesIntoCommand += minutes;
+                        remaining -= minutes;
+                    } catch (RuntimeException e) {
+                        // The recorded call stopped here too, so the rest of it never ran
+                        remaining = 0;
+                    } finally {
+                        tick += (int) (controller.getMinutesSimulated() - minutesBefore);
+                    }
+                }
+                if (remaining == 0) {
+                    nextCommand++;
+                    minutesIntoCommand = 0;
+                }
+            } else {
+                nextCommand++;
+                try {
+                    command.applyTo(controller);
+                } catch (InvalidRouteException | RuntimeException e) {
+                    continue; // Failed the same way when it was recorded
+                }
+            }
+
+            if (event != null && event.test(controller)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+package unsw.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import unsw.trains.TrainsController;
+
+/**
+ * Saves the full state of a simulation to a binary snapshot file, and restores a simulation
+ * from one. Restoring builds the network directly rather than replaying every create call, so
+ * none of the checks made when creating stations, tracks and trains are repeated.
+ *
+ * Snapshots are written to a temporary file that replaces the target only once it is complete,
+ * so a crash while saving leaves the previous snapshot intact. They are read through a
+ * memory-mapped buffer.
+ */
+public final class SnapshotFile {
+    /**
+     * Identifies a snapshot file ("TRSN"), and the version of the format that follows.
+     */
+    private static final int MAGIC = 0x5452534E;
+    private static final int VERSION = 2;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Saves the state of a simulation.
+     *
+     * @param controller The simulation to save.
+     * @param path       File to write, replaced if it exists.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(TrainsController controller, Path path) throws IOException {
+        SnapshotOutput out = new SnapshotOutput();
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        controller.writeSnapshot(out);
+
+        Path absolute = path.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer encoded = out.toByteBuffer();
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a simulation from a snapshot.
+     *
+     * @param path File to read.
+     * @return a new controller holding the saved state.
+     * @throws IOException if the file cannot be read or is not a snapshot.
+     */
+    public static TrainsController read(Path path) throws IOException {
+        TrainsController controller = new TrainsController();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a snapshot file: " + path);
+            }
+
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+
+            try {
+                controller.restoreSnapshot(new SnapshotInput(buffer));
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt snapshot file: " + path, e);
+            }
+        }
+        return controller;
+    }
+}
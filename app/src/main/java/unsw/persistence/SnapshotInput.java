@@ -0,0 +1,135 @@
+package unsw.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import unsw.loads.Cargo;
+import unsw.loads.Passenger;
+import unsw.loads.PerishableCargo;
+
+/**
+ * Decodes simulation state written by {@link SnapshotOutput}, reading directly from a buffer
+ * such as a memory-mapped snapshot file.
+ */
+public class SnapshotInput {
+    private ByteBuffer buffer;
+
+    /**
+     * Strings read so far, indexed in the order they first appeared.
+     */
+    private List<String> strings = new ArrayList<>();
+
+    /**
+     * Constructs a SnapshotInput reading from the current position of a buffer.
+     *
+     * @param buffer The encoded snapshot.
+     */
+    public SnapshotInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return the value read.
+     */
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @return the value read.
+     */
+    public long readLong() {
+        return buffer.getLong();
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return the value read.
+     */
+    public double readDouble() {
+        return buffer.getDouble();
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the value read.
+     */
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return the string read, which may be null.
+     * @throws IllegalStateException if the string refers to one that has not been read.
+     */
+    public String readString() {
+        int tag = readInt();
+        if (tag == SnapshotOutput.NULL_STRING)
+            return null;
+
+        if (tag == SnapshotOutput.NEW_STRING) {
+            byte[] bytes = new byte[readInt()];
+            buffer.get(bytes);
+            String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+
+        if (tag < 0 || tag >= strings.size()) {
+            throw new IllegalStateException("Corrupt snapshot: unknown string " + tag);
+        }
+        return strings.get(tag);
+    }
+
+    /**
+     * Reads passengers written by {@link SnapshotOutput#writePassengers}.
+     *
+     * @return the passengers, in the order they were written.
+     */
+    public List<Passenger> readPassengers() {
+        int count = readInt();
+        List<Passenger> passengers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            passengers.add(new Passenger(readString(), readString(), readInt()));
+        }
+        return passengers;
+    }
+
+    /**
+     * Reads regular cargo written by {@link SnapshotOutput#writeCargo}.
+     *
+     * @return the cargo, in the order it was written.
+     */
+    public List<Cargo> readCargo() {
+        int count = readInt();
+        List<Cargo> cargo = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cargo.add(new Cargo(readString(), readString(), readInt(), readInt()));
+        }
+        return cargo;
+    }
+
+    /**
+     * Reads perishable cargo written by {@link SnapshotOutput#writePerishableCargo}.
+     *
+     * @return the perishable cargo, in the order it was written.
+     */
+    public List<PerishableCargo> readPerishableCargo() {
+        int count = readInt();
+        List<PerishableCargo> cargo = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cargo.add(new PerishableCargo(readString(), readString(), readInt(), readInt(), readInt()));
+        }
+        return cargo;
+    }
+}
@@ -0,0 +1,179 @@
+package unsw.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import unsw.loads.Cargo;
+import unsw.loads.Passenger;
+import unsw.loads.PerishableCargo;
+
+/**
+ * Encodes simulation state into the binary snapshot format, read back by {@link SnapshotInput}.
+ *
+ * Values are written big-endian into a growable buffer. Strings are written in full the first
+ * time they appear and as an index into the strings seen so far after that, so the IDs repeated
+ * throughout a network (station IDs in routes and load destinations) are only stored once.
+ */
+public class SnapshotOutput {
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * Marks a null string, and a string written in full for the first time.
+     */
+    static final int NULL_STRING = -1;
+    static final int NEW_STRING = -2;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private Map<String, Integer> strings = new HashMap<>();
+
+    /**
+     * Writes an int.
+     *
+     * @param value The value to write.
+     */
+    public void writeInt(int value) {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long.
+     *
+     * @param value The value to write.
+     */
+    public void writeLong(long value) {
+        ensureRemaining(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a double.
+     *
+     * @param value The value to write.
+     */
+    public void writeDouble(double value) {
+        ensureRemaining(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes a boolean as a single byte.
+     *
+     * @param value The value to write.
+     */
+    public void writeBoolean(boolean value) {
+        ensureRemaining(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Writes a string, which may be null.
+     *
+     * @param value The string to write.
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeInt(NULL_STRING);
+            return;
+        }
+
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeInt(index);
+            return;
+        }
+
+        strings.put(value, strings.size());
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(NEW_STRING);
+        writeInt(bytes.length);
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Writes a collection of passengers, preceded by their count. A null collection is written as empty.
+     *
+     * @param passengers The passengers, in the order they should be restored.
+     */
+    public void writePassengers(Collection<Passenger> passengers) {
+        if (passengers == null) {
+            writeInt(0);
+            return;
+        }
+
+        writeInt(passengers.size());
+        for (Passenger passenger : passengers) {
+            writeString(passenger.getPassengerId());
+            writeString(passenger.getDestination());
+            writeInt(passenger.getDestinationHandle());
+        }
+    }
+
+    /**
+     * Writes a collection of regular cargo, preceded by its count. A null collection is written as empty.
+     *
+     * @param cargo The cargo, in the order it should be restored.
+     */
+    public void writeCargo(Collection<Cargo> cargo) {
+        if (cargo == null) {
+            writeInt(0);
+            return;
+        }
+
+        writeInt(cargo.size());
+        for (Cargo item : cargo) {
+            writeString(item.getCargoId());
+            writeString(item.getDestination());
+            writeInt(item.getDestinationHandle());
+            writeInt(item.getWeight());
+        }
+    }
+
+    /**
+     * Writes a collection of perishable cargo with the minutes each item has left, preceded by
+     * its count. A null collection is written as empty.
+     *
+     * @param cargo The perishable cargo, in the order it should be restored.
+     */
+    public void writePerishableCargo(Collection<PerishableCargo> cargo) {
+        if (cargo == null) {
+            writeInt(0);
+            return;
+        }
+
+        writeInt(cargo.size());
+        for (PerishableCargo item : cargo) {
+            writeString(item.getCargoId());
+            writeString(item.getDestination());
+            writeInt(item.getDestinationHandle());
+            writeInt(item.getWeight());
+            writeInt(item.getMinutesTillPerish());
+        }
+    }
+
+    /**
+     * Returns everything written so far, ready to be written out.
+     *
+     * @return a read-only buffer positioned at the start of the encoded data.
+     */
+    public ByteBuffer toByteBuffer() {
+        ByteBuffer encoded = buffer.duplicate();
+        encoded.flip();
+        return encoded.asReadOnlyBuffer();
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() >= bytes)
+            return;
+
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
@@ -1,10 +1,11 @@
 package unsw.stations;
 
 import unsw.utils.Position;
+import unsw.utils.StationType;
 
 /**
  * A station specifically designed for handling cargo-related operations.
- * Inherits from the generic {@link Station} class and sets the type to "CargoStation".
+ * Inherits from the generic {@link Station} class and sets the type to {@link StationType#CARGO_STATION}.
  */
 public class CargoStation extends Station {
     /**
@@ -14,6 +15,6 @@ public class CargoStation extends Station {
      * @param position  Position of the station on the map/grid.
      */
     public CargoStation(String stationId, Position position) {
-        super(stationId, "CargoStation", position);
+        super(stationId, StationType.CARGO_STATION, position);
     }
 }
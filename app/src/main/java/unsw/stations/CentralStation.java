@@ -1,10 +1,11 @@
 package unsw.stations;
 
 import unsw.utils.Position;
+import unsw.utils.StationType;
 
 /**
  * Represents a central station that can handle both passengers and cargo.
- * Inherits from the generic {@link Station} class and sets the type to "CentralStation".
+ * Inherits from the generic {@link Station} class and sets the type to {@link StationType#CENTRAL_STATION}.
  */
 public class CentralStation extends Station {
     /**
@@ -14,6 +15,6 @@ public class CentralStation extends Station {
      * @param position  The position of the station on the map or grid.
      */
     public CentralStation(String stationId, Position position) {
-        super(stationId, "CentralStation", position);
+        super(stationId, StationType.CENTRAL_STATION, position);
     }
 }
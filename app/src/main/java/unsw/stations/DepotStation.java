@@ -1,10 +1,11 @@
 package unsw.stations;
 
 import unsw.utils.Position;
+import unsw.utils.StationType;
 
 /**
  * Represents a depot station used for storing or dispatching trains.
- * Inherits from the generic {@link Station} class and sets the type to "DepotStation".
+ * Inherits from the generic {@link Station} class and sets the type to {@link StationType#DEPOT_STATION}.
  */
 public class DepotStation extends Station {
     /**
@@ -14,6 +15,6 @@ public class DepotStation extends Station {
      * @param position  The position of the station on the map or grid.
      */
     public DepotStation(String stationId, Position position) {
-        super(stationId, "DepotStation", position);
+        super(stationId, StationType.DEPOT_STATION, position);
     }
 }
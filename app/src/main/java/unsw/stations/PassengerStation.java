@@ -1,10 +1,11 @@
 package unsw.stations;
 
 import unsw.utils.Position;
+import unsw.utils.StationType;
 
 /**
  * Represents a station dedicated to handling passenger transport.
- * Inherits from the generic {@link Station} class and sets the type to "PassengerStation".
+ * Inherits from the generic {@link Station} class and sets the type to {@link StationType#PASSENGER_STATION}.
  */
 public class PassengerStation extends Station {
     /**
@@ -14,6 +15,6 @@ public class PassengerStation extends Station {
      * @param position  The position of the station on the map or grid.
      */
     public PassengerStation(String stationId, Position position) {
-        super(stationId, "PassengerStation", position);
+        super(stationId, StationType.PASSENGER_STATION, position);
     }
 }
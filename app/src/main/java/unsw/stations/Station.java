@@ -1,15 +1,24 @@
 package unsw.stations;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import unsw.loads.Cargo;
+import unsw.loads.LoadQueue;
 import unsw.loads.Passenger;
 import unsw.loads.PerishableCargo;
-import unsw.managers.CargoManager;
+import unsw.loads.PerishableCargoQueue;
 import unsw.response.models.LoadInfoResponse;
 import unsw.trains.Train;
 import unsw.utils.Position;
+import unsw.utils.StationType;
 
 /**
  * Represents a generic train station that may handle passengers, regular cargo,
@@ -18,29 +27,44 @@ import unsw.utils.Position;
  */
 public class Station {
     private String stationId;
-    private String type;
+    private int handle = -1;
+    private StationType type;
     private Position position;
 
-    private List<Train> trains;
-    private List<Passenger> passengersWaiting;
-    private List<Cargo> regularCargoWaiting;
-    private List<PerishableCargo> perishableCargoWaiting;
+    /**
+     * Trains at the station, in the order they arrived.
+     */
+    private Set<Train> trains;
+    private Collection<Train> trainsView;
+
+    /**
+     * Waiting passengers and cargo, bucketed by destination station handle.
+     */
+    private LoadQueue<Passenger> passengersWaiting;
+    private LoadQueue<Cargo> regularCargoWaiting;
+    private PerishableCargoQueue perishableCargoWaiting;
+
+    /**
+     * Called with this station when perishable cargo starts waiting at it, or null if nobody is listening.
+     */
+    private Consumer<Station> perishableCargoListener;
 
     /**
      * Constructs a station with the given ID, type, and position.
      *
      * @param stationId Unique identifier for the station.
-     * @param type      The type of station (e.g., PassengerStation, CargoStation).
+     * @param type      The type of station, which determines its capabilities.
      * @param position  Position of the station on the map/grid.
      */
-    public Station(String stationId, String type, Position position) {
+    public Station(String stationId, StationType type, Position position) {
         this.stationId = stationId;
         this.type = type;
         this.position = position;
-        this.trains = new ArrayList<>();
-        this.passengersWaiting = new ArrayList<>();
-        this.regularCargoWaiting = new ArrayList<>();
-        this.perishableCargoWaiting = new ArrayList<>();
+        this.trains = new LinkedHashSet<>();
+        this.trainsView = Collections.unmodifiableSet(trains);
+        this.passengersWaiting = new LoadQueue<>();
+        this.regularCargoWaiting = new LoadQueue<>();
+        this.perishableCargoWaiting = new PerishableCargoQueue();
     }
 
     /**
@@ -62,11 +86,11 @@ public class Station {
     }
 
     /**
-     * Returns the list of passengers currently waiting at the station.
+     * Returns the passengers currently waiting at the station.
      *
-     * @return list of passengers.
+     * @return waiting passengers, grouped by destination.
      */
-    public List<Passenger> getPassengersWaiting() {
+    public Collection<Passenger> getPassengersWaiting() {
         return passengersWaiting;
     }
 
@@ -85,7 +109,29 @@ public class Station {
      * @param cargo Perishable cargo to add.
      */
     public void addCargo(PerishableCargo cargo) {
+        boolean wasEmpty = perishableCargoWaiting.isEmpty();
         perishableCargoWaiting.add(cargo);
+        if (wasEmpty && perishableCargoListener != null) {
+            perishableCargoListener.accept(this);
+        }
+    }
+
+    /**
+     * Sets the listener told when perishable cargo starts waiting at the station, having had none.
+     *
+     * @param perishableCargoListener Called with this station when it starts holding perishable cargo.
+     */
+    public void setPerishableCargoListener(Consumer<Station> perishableCargoListener) {
+        this.perishableCargoListener = perishableCargoListener;
+    }
+
+    /**
+     * Checks whether any perishable cargo is waiting at the station.
+     *
+     * @return true if the station holds perishable cargo.
+     */
+    public boolean hasPerishableCargo() {
+        return !perishableCargoWaiting.isEmpty();
     }
 
     /**
@@ -107,20 +153,57 @@ public class Station {
     }
 
     /**
-     * Returns the list of regular cargo currently waiting at the station.
+     * Boards waiting passengers headed for the given destinations, in the order they arrived.
+     * Passengers for any other destination are not looked at.
+     *
+     * @param destinations Station handles of the destinations to board, without duplicates.
+     * @param canContinue  Checked before each passenger; boarding stops once it returns false.
+     * @param boards       Predicate called for each passenger in turn, returning true if they boarded.
+     */
+    public void boardPassengers(int[] destinations, BooleanSupplier canContinue, Predicate<Passenger> boards) {
+        passengersWaiting.board(destinations, canContinue, boards);
+    }
+
+    /**
+     * Boards waiting regular cargo headed for the given destinations, in the order it arrived.
+     * Cargo for any other destination is not looked at.
+     *
+     * @param destinations Station handles of the destinations to board, without duplicates.
+     * @param canContinue  Checked before each item; boarding stops once it returns false.
+     * @param boards       Predicate called for each item in turn, returning true if it boarded.
+     */
+    public void boardCargo(int[] destinations, BooleanSupplier canContinue, Predicate<Cargo> boards) {
+        regularCargoWaiting.board(destinations, canContinue, boards);
+    }
+
+    /**
+     * Boards waiting perishable cargo headed for the given destinations, in the order it arrived.
+     * Cargo for any other destination is not looked at.
+     *
+     * @param destinations Station handles of the destinations to board, without duplicates.
+     * @param canContinue  Checked before each item; boarding stops once it returns false.
+     * @param boards       Predicate called for each item in turn, returning true if it boarded.
+     */
+    public void boardPerishableCargo(int[] destinations, BooleanSupplier canContinue,
+            Predicate<PerishableCargo> boards) {
+        perishableCargoWaiting.board(destinations, canContinue, boards);
+    }
+
+    /**
+     * Returns the regular cargo currently waiting at the station.
      *
-     * @return list of Cargo.
+     * @return waiting cargo, grouped by destination.
      */
-    public List<Cargo> getCargoWaiting() {
+    public Collection<Cargo> getCargoWaiting() {
         return regularCargoWaiting;
     }
 
     /**
-     * Returns the list of perishable cargo currently waiting at the station.
+     * Returns the perishable cargo currently waiting at the station.
      *
-     * @return list of PerishableCargo.
+     * @return waiting perishable cargo, grouped by destination.
      */
-    public List<PerishableCargo> getPerishableCargoWaiting() {
+    public Collection<PerishableCargo> getPerishableCargoWaiting() {
         return perishableCargoWaiting;
     }
 
@@ -133,12 +216,39 @@ public class Station {
         return stationId;
     }
 
+    /**
+     * Returns the station's handle, used by routes and loads to refer to it.
+     *
+     * @return station handle, or -1 if none has been assigned.
+     */
+    public int getHandle() {
+        return handle;
+    }
+
+    /**
+     * Sets the station's handle.
+     *
+     * @param handle Handle assigned to the station ID.
+     */
+    public void setHandle(int handle) {
+        this.handle = handle;
+    }
+
     /**
      * Returns the station's type (e.g., PassengerStation, CargoStation).
      *
      * @return station type as a string.
      */
     public String getType() {
+        return type.getName();
+    }
+
+    /**
+     * Returns the station's type and capabilities.
+     *
+     * @return station type.
+     */
+    public StationType getStationType() {
         return type;
     }
 
@@ -157,33 +267,26 @@ public class Station {
      * @return true if full, false otherwise.
      */
     public boolean isFull() {
-        int maxCapacity;
-
-        switch (type) {
-        case "PassengerStation":
-            maxCapacity = 2;
-            break;
-        case "CargoStation":
-            maxCapacity = 4;
-            break;
-        case "CentralStation":
-        case "DepotStation":
-            maxCapacity = 8;
-            break;
-        default:
-            throw new IllegalArgumentException("Invalid station type: " + type);
-        }
+        return trains.size() >= type.getMaxTrains();
+    }
 
-        return trains.size() >= maxCapacity;
+    /**
+     * Checks whether the station could take the given number of extra trains without going over capacity.
+     *
+     * @param arriving Number of trains that may arrive.
+     * @return true if every one of them would fit.
+     */
+    public boolean hasRoomFor(int arriving) {
+        return trains.size() + arriving <= type.getMaxTrains();
     }
 
     /**
-     * Returns the list of trains currently at the station.
+     * Returns the trains currently at the station, in the order they arrived.
      *
-     * @return list of Train objects.
+     * @return unmodifiable collection of Train objects.
      */
-    public List<Train> getTrains() {
-        return trains;
+    public Collection<Train> getTrains() {
+        return trainsView;
     }
 
     /**
@@ -227,19 +330,19 @@ public class Station {
         List<LoadInfoResponse> loads = new ArrayList<>();
 
         // If station supports passengers, add passenger info
-        if (this instanceof PassengerStation || this instanceof CentralStation) {
-            for (Passenger passenger : passengersWaiting) {
+        if (type.handlesPassengers()) {
+            for (Passenger passenger : passengersWaiting.toList()) {
                 loads.add(new LoadInfoResponse(passenger.getPassengerId(), "Passenger"));
             }
         }
 
         // If station supports cargo, add cargo info
-        if (this instanceof CargoStation || this instanceof CentralStation) {
-            for (Cargo cargo : regularCargoWaiting) {
+        if (type.handlesCargo()) {
+            for (Cargo cargo : regularCargoWaiting.toList()) {
                 loads.add(new LoadInfoResponse(cargo.getCargoId(), "Cargo"));
             }
 
-            for (PerishableCargo perishable : perishableCargoWaiting) {
+            for (PerishableCargo perishable : perishableCargoWaiting.toList()) {
                 loads.add(new LoadInfoResponse(perishable.getCargoId(), "PerishableCargo"));
             }
         }
@@ -248,14 +351,28 @@ public class Station {
     }
 
     /**
-     * Updates all perishable cargo at the station by decreasing their remaining time.
-     * Removes expired cargo via the CargoManager.
+     * Ages all perishable cargo at the station by one minute, removing any that expires.
      */
     public void updatePerishableCargo() {
-        for (PerishableCargo perishableCargo : perishableCargoWaiting) {
-            perishableCargo.decreaseTime(1);
-        }
+        agePerishableCargo(1);
+    }
 
-        CargoManager.removeExpiredPerishableCargo(perishableCargoWaiting);
+    /**
+     * Ages all perishable cargo at the station by the given number of minutes, removing any
+     * that expires. Only the expiring items are looked at.
+     *
+     * @param minutes Number of minutes to age by.
+     */
+    public void agePerishableCargo(int minutes) {
+        perishableCargoWaiting.age(minutes);
+    }
+
+    /**
+     * Returns the number of minutes until the next perishable cargo item at the station expires.
+     *
+     * @return minutes until the next expiry, or Integer.MAX_VALUE if there is none.
+     */
+    public int getMinutesUntilNextExpiry() {
+        return perishableCargoWaiting.getMinutesUntilNextExpiry();
     }
 }
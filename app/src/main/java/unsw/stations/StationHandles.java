@@ -0,0 +1,60 @@
+package unsw.stations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense integer handles to station IDs, so that routes and loads can refer to
+ * stations by index instead of comparing strings. A station ID keeps its handle for the
+ * lifetime of the registry, even if the station is replaced.
+ */
+public class StationHandles {
+    /**
+     * Map of station ID to its handle.
+     */
+    private Map<String, Integer> handles;
+
+    /**
+     * Station IDs in handle order.
+     */
+    private List<String> stationIds;
+
+    /**
+     * Constructs an empty StationHandles registry.
+     */
+    public StationHandles() {
+        this.handles = new HashMap<>();
+        this.stationIds = new ArrayList<>();
+    }
+
+    /**
+     * Returns the handle of a station ID, assigning the next free handle if it has none yet.
+     * IDs that do not belong to a station (such as an unknown load destination) are given a
+     * handle too, which no route will contain.
+     *
+     * @param stationId ID of the station.
+     * @return the station's handle.
+     */
+    public int get(String stationId) {
+        Integer handle = handles.get(stationId);
+        if (handle == null) {
+            handle = handles.size();
+            handles.put(stationId, handle);
+            stationIds.add(stationId);
+        }
+        return handle;
+    }
+
+    /**
+     * Returns every station ID given a handle so far, in handle order, so that the same
+     * handles can be assigned again when the registry is rebuilt.
+     *
+     * @return unmodifiable list of station IDs, where each ID's position is its handle.
+     */
+    public List<String> getStationIds() {
+        return Collections.unmodifiableList(stationIds);
+    }
+}
@@ -1,5 +1,8 @@
 package unsw.tracks;
 
+import java.util.function.Consumer;
+
+import unsw.events.SimulationEventLog;
 import unsw.utils.TrackType;
 
 /**
@@ -24,6 +27,16 @@ public class BreakableTrack extends Track {
      */
     private boolean shouldStartRepairing;
 
+    /**
+     * Log that durability changes, breaks and repairs are recorded in.
+     */
+    private SimulationEventLog eventLog;
+
+    /**
+     * Called with this track whenever it breaks, or null if nobody is listening.
+     */
+    private Consumer<Track> breakListener;
+
     /**
      * Constructs a BreakableTrack with initial durability of 10.
      *
@@ -36,6 +49,25 @@ public class BreakableTrack extends Track {
         this.durability = 10;
         this.isBroken = false;
         this.shouldStartRepairing = false;
+        this.eventLog = SimulationEventLog.getDefault();
+    }
+
+    /**
+     * Sets the log that this track's events are recorded in.
+     *
+     * @param eventLog The event log.
+     */
+    public void setEventLog(SimulationEventLog eventLog) {
+        this.eventLog = eventLog;
+    }
+
+    /**
+     * Sets the listener told when this track breaks, such as the manager that repairs broken tracks.
+     *
+     * @param breakListener Called with this track whenever it breaks.
+     */
+    public void setBreakListener(Consumer<Track> breakListener) {
+        this.breakListener = breakListener;
     }
 
     /**
@@ -44,6 +76,7 @@ public class BreakableTrack extends Track {
      *
      * @param trainLoad The weight/load of the train passing over the track.
      */
+    @Override
     public void decreaseDurability(int trainLoad) {
         if (isBroken)
             return; // Already broken, don't decrease further
@@ -51,14 +84,17 @@ public class BreakableTrack extends Track {
         int reduction = 1 + (int) Math.ceil(trainLoad / 1000.0);
         durability -= reduction;
 
-        System.out.println("Reducing track durability by: " + reduction + ", new durability: " + durability);
+        eventLog.durabilityChanged(getTrackId(), reduction, durability);
 
         if (durability <= 0) {
             durability = 0;
             isBroken = true;
             shouldStartRepairing = false; // Ensure repair doesn't start instantly
             setType(TrackType.BROKEN);
-            System.out.println("Track " + getTrackId() + " is now BROKEN.");
+            eventLog.trackBroken(getTrackId());
+            if (breakListener != null) {
+                breakListener.accept(this);
+            }
         }
     }
 
@@ -66,6 +102,7 @@ public class BreakableTrack extends Track {
      * Repairs the track gradually by increasing its durability by 1 each call.
      * The repair will only start one tick after the track is broken.
      */
+    @Override
     public void repair() {
         if (isBroken && !shouldStartRepairing) {
             shouldStartRepairing = true;
@@ -74,14 +111,14 @@ public class BreakableTrack extends Track {
 
         if (isBroken && shouldStartRepairing) {
             durability += 1;
-            System.out.println("Repairing track " + getTrackId() + ", durability now: " + durability);
+            eventLog.trackRepairing(getTrackId(), durability);
 
             if (durability >= 10) {
                 durability = 10;
                 isBroken = false;
                 shouldStartRepairing = false;
                 setType(TrackType.UNBROKEN);
-                System.out.println("Track " + getTrackId() + " is fully repaired.");
+                eventLog.trackRepaired(getTrackId());
             }
         }
     }
@@ -91,15 +128,41 @@ public class BreakableTrack extends Track {
      *
      * @return true if the track is broken, false otherwise.
      */
+    @Override
     public boolean isBroken() {
         return isBroken;
     }
 
+    /**
+     * Returns whether repair of the broken track has started, which happens one tick after it breaks.
+     *
+     * @return true if the track is being repaired.
+     */
+    public boolean isRepairStarted() {
+        return shouldStartRepairing;
+    }
+
+    /**
+     * Restores the track's durability and repair state, such as when loading a snapshot.
+     * No events are logged and the break listener is not told.
+     *
+     * @param durability    Durability between 0 and 10.
+     * @param isBroken      True if the track is broken.
+     * @param repairStarted True if repair of the broken track has started.
+     */
+    public void restoreState(int durability, boolean isBroken, boolean repairStarted) {
+        this.durability = durability;
+        this.isBroken = isBroken;
+        this.shouldStartRepairing = repairStarted;
+        setType(isBroken ? TrackType.BROKEN : TrackType.UNBROKEN);
+    }
+
     /**
      * Returns the current durability of the track.
      *
      * @return durability value between 0 and 10.
      */
+    @Override
     public int getDurability() {
         return durability;
     }
@@ -4,6 +4,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 import unsw.trains.Train;
+import unsw.utils.Position;
 import unsw.utils.TrackType;
 
 /**
@@ -42,6 +43,17 @@ public class Track {
      */
     private Set<Train> trainsOnTrack;
 
+    /**
+     * Straight-line length of the track between its two stations.
+     */
+    private double length;
+
+    /**
+     * Unit vector pointing from the from-station to the to-station.
+     */
+    private double directionX;
+    private double directionY;
+
     /**
      * Constructs a new Track connecting two stations with a specified type.
      *
@@ -126,6 +138,29 @@ public class Track {
         this.type = newType;
     }
 
+    /**
+     * Returns whether the track is currently broken. Regular tracks never break.
+     *
+     * @return true if the track is broken, false otherwise.
+     */
+    public boolean isBroken() {
+        return false;
+    }
+
+    /**
+     * Wears the track down as a train travels over it. Regular tracks do not wear.
+     *
+     * @param trainLoad The weight/load of the train passing over the track.
+     */
+    public void decreaseDurability(int trainLoad) {
+    }
+
+    /**
+     * Repairs the track by one step, called once per simulated minute. Regular tracks never need repair.
+     */
+    public void repair() {
+    }
+
     /**
      * Checks if the given train is currently on this track.
      *
@@ -135,4 +170,48 @@ public class Track {
     public boolean hasTrain(Train train) {
         return trainsOnTrack.contains(train);
     }
+
+    /**
+     * Caches the length and direction of the track from the positions of its stations.
+     * Station positions never change, so this only needs to be done once when the track is created.
+     *
+     * @param fromPosition Position of the from-station.
+     * @param toPosition   Position of the to-station.
+     */
+    public void setGeometry(Position fromPosition, Position toPosition) {
+        double dx = toPosition.getX() - fromPosition.getX();
+        double dy = toPosition.getY() - fromPosition.getY();
+        this.length = Math.sqrt(dx * dx + dy * dy);
+        this.directionX = length == 0 ? 0 : dx / length;
+        this.directionY = length == 0 ? 0 : dy / length;
+    }
+
+    /**
+     * Returns the straight-line length of the track.
+     *
+     * @return the track length.
+     */
+    public double getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the x-component of the unit vector for travelling along the track toward the given station.
+     *
+     * @param towardsStationId ID of the station being travelled to.
+     * @return x-component of the direction of travel.
+     */
+    public double getDirectionX(String towardsStationId) {
+        return toStationId.equals(towardsStationId) ? directionX : -directionX;
+    }
+
+    /**
+     * Returns the y-component of the unit vector for travelling along the track toward the given station.
+     *
+     * @param towardsStationId ID of the station being travelled to.
+     * @return y-component of the direction of travel.
+     */
+    public double getDirectionY(String towardsStationId) {
+        return toStationId.equals(towardsStationId) ? directionY : -directionY;
+    }
 }
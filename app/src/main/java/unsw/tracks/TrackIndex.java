@@ -0,0 +1,93 @@
+package unsw.tracks;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Adjacency index over the track network, keyed by unordered station pair.
+ * Allows the track between two stations to be found in constant time instead
+ * of scanning every track in the system.
+ */
+public class TrackIndex {
+    /**
+     * Map of station ID to a map of neighbouring station ID to the connecting track.
+     * Every track is stored under both of its endpoints.
+     */
+    private Map<String, Map<String, Track>> adjacency;
+
+    /**
+     * Constructs an empty TrackIndex.
+     */
+    public TrackIndex() {
+        this.adjacency = new HashMap<>();
+    }
+
+    /**
+     * Registers a track under both of its endpoint stations.
+     *
+     * @param track The track to add.
+     */
+    public void add(Track track) {
+        adjacency.computeIfAbsent(track.getFromStationId(), k -> new HashMap<>()).put(track.getToStationId(), track);
+        adjacency.computeIfAbsent(track.getToStationId(), k -> new HashMap<>()).put(track.getFromStationId(), track);
+    }
+
+    /**
+     * Removes a track from the index, if it is still the track registered between its endpoints.
+     *
+     * @param track The track to remove.
+     */
+    public void remove(Track track) {
+        removeEntry(track.getFromStationId(), track.getToStationId(), track);
+        removeEntry(track.getToStationId(), track.getFromStationId(), track);
+    }
+
+    /**
+     * Returns the track connecting the two given stations, regardless of direction.
+     *
+     * @param stationA ID of one station.
+     * @param stationB ID of the other station.
+     * @return the connecting track, or null if the stations are not connected.
+     */
+    public Track get(String stationA, String stationB) {
+        Map<String, Track> neighbours = adjacency.get(stationA);
+        if (neighbours == null)
+            return null;
+
+        return neighbours.get(stationB);
+    }
+
+    /**
+     * Checks whether a track connects the two given stations.
+     *
+     * @param stationA ID of one station.
+     * @param stationB ID of the other station.
+     * @return true if a track connects the stations, false otherwise.
+     */
+    public boolean connects(String stationA, String stationB) {
+        return get(stationA, stationB) != null;
+    }
+
+    /**
+     * Returns the tracks with the given station as an endpoint.
+     *
+     * @param stationId ID of the station.
+     * @return the tracks connected to the station.
+     */
+    public Collection<Track> getTracks(String stationId) {
+        Map<String, Track> neighbours = adjacency.get(stationId);
+        if (neighbours == null)
+            return Collections.emptyList();
+
+        return neighbours.values();
+    }
+
+    private void removeEntry(String stationId, String neighbourId, Track track) {
+        Map<String, Track> neighbours = adjacency.get(stationId);
+        if (neighbours != null) {
+            neighbours.remove(neighbourId, track);
+        }
+    }
+}
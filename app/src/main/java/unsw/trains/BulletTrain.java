@@ -1,15 +1,19 @@
 package unsw.trains;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import unsw.loads.Cargo;
+import unsw.loads.LoadQueue;
 import unsw.loads.Passenger;
 import unsw.loads.PerishableCargo;
-import unsw.managers.CargoManager;
+import unsw.loads.PerishableCargoQueue;
 import unsw.response.models.LoadInfoResponse;
 import unsw.utils.Position;
+import unsw.utils.TrainType;
 
 /**
  * Represents a Bullet Train with support for transporting passengers,
@@ -22,9 +26,17 @@ public class BulletTrain extends Train {
     private static final int MAX_CAPACITY_KG = 5000;
     private static final int PASSENGER_WEIGHT = 70;
 
-    private List<Passenger> passengers;
-    private List<Cargo> cargoList;
-    private List<PerishableCargo> perishableCargo;
+    private LoadQueue<Passenger> passengers;
+    private LoadQueue<Cargo> cargoList;
+    private PerishableCargoQueue perishableCargo;
+
+    /**
+     * Read-only views of the load lists. Load must be added and removed through the train so
+     * that its total weight stays up to date.
+     */
+    private Collection<Passenger> passengersView;
+    private Collection<Cargo> cargoView;
+    private Collection<PerishableCargo> perishableCargoView;
 
     /**
      * Constructs a BulletTrain with the specified ID, initial position, and route.
@@ -34,10 +46,13 @@ public class BulletTrain extends Train {
      * @param route    List of station IDs defining the route.
      */
     public BulletTrain(String trainId, Position position, List<String> route) {
-        super(trainId, position, route, "BulletTrain");
-        this.passengers = new ArrayList<>();
-        this.cargoList = new ArrayList<>();
-        this.perishableCargo = new ArrayList<>();
+        super(trainId, position, route, TrainType.BULLET_TRAIN);
+        this.passengers = new LoadQueue<>();
+        this.cargoList = new LoadQueue<>();
+        this.perishableCargo = new PerishableCargoQueue();
+        this.passengersView = Collections.unmodifiableCollection(passengers);
+        this.cargoView = Collections.unmodifiableCollection(cargoList);
+        this.perishableCargoView = Collections.unmodifiableCollection(perishableCargo);
     }
 
     /**
@@ -58,27 +73,14 @@ public class BulletTrain extends Train {
         return MAX_CAPACITY_KG;
     }
 
-    /**
-     * Calculates the total current weight of passengers and cargo.
-     *
-     * @return total weight in kg.
-     */
-    @Override
-    public int getTotalWeight() {
-        int passengerWeight = passengers.size() * PASSENGER_WEIGHT; // Each passenger = 70kg
-        int cargoWeight = cargoList.stream().mapToInt(Cargo::getWeight).sum();
-        int perishableCargoWeight = perishableCargo.stream().mapToInt(Cargo::getWeight).sum();
-        return passengerWeight + cargoWeight + perishableCargoWeight;
-    }
-
     /**
      * Returns the list of perishable cargo currently on the train.
      *
      * @return list of perishable cargo.
      */
     @Override
-    public List<PerishableCargo> getPerishableCargo() {
-        return perishableCargo;
+    public Collection<PerishableCargo> getPerishableCargo() {
+        return perishableCargoView;
     }
 
     /**
@@ -87,7 +89,9 @@ public class BulletTrain extends Train {
      * @param cargo the perishable cargo to add.
      */
     public void addCargo(PerishableCargo cargo) {
-        perishableCargo.add(cargo);
+        if (perishableCargo.add(cargo)) {
+            changeWeight(cargo.getWeight());
+        }
     }
 
     /**
@@ -96,7 +100,9 @@ public class BulletTrain extends Train {
      * @param cargo the cargo to add.
      */
     public void addCargo(Cargo cargo) {
-        cargoList.add(cargo);
+        if (cargoList.add(cargo)) {
+            changeWeight(cargo.getWeight());
+        }
     }
 
     /**
@@ -106,7 +112,9 @@ public class BulletTrain extends Train {
      */
     @Override
     public void removeCargo(PerishableCargo cargo) {
-        perishableCargo.remove(cargo);
+        if (perishableCargo.remove(cargo)) {
+            changeWeight(-cargo.getWeight());
+        }
     }
 
     /**
@@ -116,29 +124,33 @@ public class BulletTrain extends Train {
      */
     @Override
     public void removeCargo(Cargo cargo) {
-        cargoList.remove(cargo);
+        if (cargoList.remove(cargo)) {
+            changeWeight(-cargo.getWeight());
+        }
     }
 
     /**
-     * Calculates the adjusted speed based on total weight.
+     * Calculates the adjusted speed for a given total weight.
      * The speed cannot go below 2 km/min.
      *
+     * @param weight total weight of passengers and cargo in kg.
      * @return adjusted speed.
      */
     @Override
-    public double getSpeed() {
-        return Math.max(2.0, BASE_SPEED - (getTotalWeight() / 1000.0));
+    protected double calculateSpeed(int weight) {
+        return Math.max(2.0, BASE_SPEED - (weight / 1000.0));
     }
 
     /**
      * Attempts to load a passenger onto the train.
      *
      * @param passenger the passenger to load.
-     * @return true if loaded successfully, false if capacity would be exceeded.
+     * @return true if loaded successfully, false if capacity would be exceeded or the passenger
+     *         is already on board.
      */
     public boolean loadPassenger(Passenger passenger) {
-        if (getTotalWeight() + PASSENGER_WEIGHT <= MAX_CAPACITY_KG) {
-            passengers.add(passenger);
+        if (getTotalWeight() + PASSENGER_WEIGHT <= MAX_CAPACITY_KG && passengers.add(passenger)) {
+            changeWeight(PASSENGER_WEIGHT);
             return true;
         }
         return false;
@@ -152,7 +164,7 @@ public class BulletTrain extends Train {
      */
     public boolean loadCargo(Cargo cargo) {
         if (getTotalWeight() + cargo.getWeight() <= MAX_CAPACITY_KG) {
-            cargoList.add(cargo);
+            addCargo(cargo);
             return true;
         }
         return false;
@@ -162,6 +174,10 @@ public class BulletTrain extends Train {
      * Unloads all passengers and cargo (excluding perishable cargo).
      */
     public void unload() {
+        changeWeight(-passengers.size() * PASSENGER_WEIGHT);
+        for (Cargo cargo : cargoList) {
+            changeWeight(-cargo.getWeight());
+        }
         passengers.clear();
         cargoList.clear();
     }
@@ -183,8 +199,8 @@ public class BulletTrain extends Train {
      */
     @Override
     public void addPassenger(Passenger p) {
-        if (hasCapacity()) {
-            passengers.add(p);
+        if (hasCapacity() && passengers.add(p)) {
+            changeWeight(PASSENGER_WEIGHT);
         }
     }
 
@@ -195,7 +211,22 @@ public class BulletTrain extends Train {
      */
     @Override
     public void removePassenger(Passenger p) {
-        passengers.remove(p);
+        if (passengers.remove(p)) {
+            changeWeight(-PASSENGER_WEIGHT);
+        }
+    }
+
+    /**
+     * Removes every passenger headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed passengers, in the order they boarded.
+     */
+    @Override
+    public List<Passenger> removePassengersFor(int stationHandle) {
+        List<Passenger> removed = passengers.removeDestination(stationHandle);
+        changeWeight(-removed.size() * PASSENGER_WEIGHT);
+        return removed;
     }
 
     /**
@@ -204,8 +235,8 @@ public class BulletTrain extends Train {
      * @return list of passengers.
      */
     @Override
-    public List<Passenger> getPassengers() {
-        return passengers;
+    public Collection<Passenger> getPassengers() {
+        return passengersView;
     }
 
     /**
@@ -220,15 +251,15 @@ public class BulletTrain extends Train {
 
         // Passengers
         loads.addAll(
-                getPassengers().stream().map(passenger -> new LoadInfoResponse(passenger.getPassengerId(), "Passenger"))
+                passengers.toList().stream().map(passenger -> new LoadInfoResponse(passenger.getPassengerId(), "Passenger"))
                         .collect(Collectors.toList()));
 
         // Regular Cargo
-        loads.addAll(getCargo().stream().map(cargo -> new LoadInfoResponse(cargo.getCargoId(), "Cargo"))
+        loads.addAll(cargoList.toList().stream().map(cargo -> new LoadInfoResponse(cargo.getCargoId(), "Cargo"))
                 .collect(Collectors.toList()));
 
         // Perishable Cargo
-        loads.addAll(getPerishableCargo().stream()
+        loads.addAll(perishableCargo.toList().stream()
                 .map(perishable -> new LoadInfoResponse(perishable.getCargoId(), "PerishableCargo"))
                 .collect(Collectors.toList()));
 
@@ -236,15 +267,24 @@ public class BulletTrain extends Train {
     }
 
     /**
-     * Updates all perishable cargo by reducing their remaining time by 1 unit.
-     * Removes expired items using the CargoManager.
+     * Ages perishable cargo by the given number of minutes and removes expired items.
+     * Only the items that expire are looked at.
+     *
+     * @param minutes Number of minutes to age by.
      */
-    public void updatePerishableCargo() {
-        for (PerishableCargo perishableCargo : perishableCargo) {
-            perishableCargo.decreaseTime(1);
-        }
+    @Override
+    public void agePerishableCargo(int minutes) {
+        changeWeight(-perishableCargo.age(minutes));
+    }
 
-        CargoManager.removeExpiredPerishableCargo(perishableCargo);
+    /**
+     * Returns the number of minutes until the next perishable cargo item on the train expires.
+     *
+     * @return minutes until the next expiry, or Integer.MAX_VALUE if there is none.
+     */
+    @Override
+    public int getMinutesUntilNextExpiry() {
+        return perishableCargo.getMinutesUntilNextExpiry();
     }
 
     /**
@@ -253,7 +293,37 @@ public class BulletTrain extends Train {
      * @return list of cargo.
      */
     @Override
-    public List<Cargo> getCargo() {
-        return cargoList;
+    public Collection<Cargo> getCargo() {
+        return cargoView;
+    }
+
+    /**
+     * Removes every regular cargo item headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed cargo, in the order it was loaded.
+     */
+    @Override
+    public List<Cargo> removeCargoFor(int stationHandle) {
+        List<Cargo> removed = cargoList.removeDestination(stationHandle);
+        for (Cargo cargo : removed) {
+            changeWeight(-cargo.getWeight());
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every perishable cargo item headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed perishable cargo, in the order it was loaded.
+     */
+    @Override
+    public List<PerishableCargo> removePerishableCargoFor(int stationHandle) {
+        List<PerishableCargo> removed = perishableCargo.removeDestination(stationHandle);
+        for (PerishableCargo cargo : removed) {
+            changeWeight(-cargo.getWeight());
+        }
+        return removed;
     }
 }
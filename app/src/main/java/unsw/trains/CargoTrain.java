@@ -1,15 +1,19 @@
 package unsw.trains;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import unsw.loads.Cargo;
+import unsw.loads.LoadQueue;
 import unsw.loads.Passenger;
 import unsw.loads.PerishableCargo;
-import unsw.managers.CargoManager;
+import unsw.loads.PerishableCargoQueue;
 import unsw.response.models.LoadInfoResponse;
 import unsw.utils.Position;
+import unsw.utils.TrainType;
 
 /**
  * Represents a Cargo Train capable of carrying regular and perishable cargo.
@@ -19,8 +23,15 @@ public class CargoTrain extends Train {
     private static final int BASE_SPEED = 3;
     private static final int MAX_CAPACITY_KG = 5000;
 
-    private List<Cargo> cargoList;
-    private List<PerishableCargo> perishableCargoList;
+    private LoadQueue<Cargo> cargoList;
+    private PerishableCargoQueue perishableCargoList;
+
+    /**
+     * Read-only views of the cargo lists. Load must be added and removed through the train so
+     * that its total weight stays up to date.
+     */
+    private Collection<Cargo> cargoView;
+    private Collection<PerishableCargo> perishableCargoView;
 
     /**
      * Constructs a new CargoTrain with the specified ID, position, and route.
@@ -30,9 +41,11 @@ public class CargoTrain extends Train {
      * @param route    List of station IDs defining the train's path.
      */
     public CargoTrain(String trainId, Position position, List<String> route) {
-        super(trainId, position, route, "CargoTrain");
-        this.cargoList = new ArrayList<>();
-        this.perishableCargoList = new ArrayList<>();
+        super(trainId, position, route, TrainType.CARGO_TRAIN);
+        this.cargoList = new LoadQueue<>();
+        this.perishableCargoList = new PerishableCargoQueue();
+        this.cargoView = Collections.unmodifiableCollection(cargoList);
+        this.perishableCargoView = Collections.unmodifiableCollection(perishableCargoList);
     }
 
     /**
@@ -50,7 +63,9 @@ public class CargoTrain extends Train {
      * @param c the cargo item to remove.
      */
     public void removeCargo(Cargo c) {
-        cargoList.remove(c);
+        if (cargoList.remove(c)) {
+            changeWeight(-c.getWeight());
+        }
     }
 
     /**
@@ -59,8 +74,8 @@ public class CargoTrain extends Train {
      * @return list of Cargo.
      */
     @Override
-    public List<Cargo> getCargo() {
-        return cargoList;
+    public Collection<Cargo> getCargo() {
+        return cargoView;
     }
 
     /**
@@ -81,26 +96,14 @@ public class CargoTrain extends Train {
         return MAX_CAPACITY_KG;
     }
 
-    /**
-     * Calculates the total weight of regular and perishable cargo.
-     *
-     * @return total weight in kg.
-     */
-    @Override
-    public int getTotalWeight() {
-        int cargoWeight = cargoList.stream().mapToInt(Cargo::getWeight).sum();
-        int perishableCargoWeight = perishableCargoList.stream().mapToInt(Cargo::getWeight).sum();
-        return cargoWeight + perishableCargoWeight;
-    }
-
     /**
      * Gets the list of perishable cargo on the train.
      *
      * @return list of PerishableCargo.
      */
     @Override
-    public List<PerishableCargo> getPerishableCargo() {
-        return perishableCargoList;
+    public Collection<PerishableCargo> getPerishableCargo() {
+        return perishableCargoView;
     }
 
     /**
@@ -109,7 +112,9 @@ public class CargoTrain extends Train {
      * @param cargo the perishable cargo to add.
      */
     public void addCargo(PerishableCargo cargo) {
-        perishableCargoList.add(cargo);
+        if (perishableCargoList.add(cargo)) {
+            changeWeight(cargo.getWeight());
+        }
     }
 
     /**
@@ -118,18 +123,21 @@ public class CargoTrain extends Train {
      * @param cargo the regular cargo to add.
      */
     public void addCargo(Cargo cargo) {
-        cargoList.add(cargo);
+        if (cargoList.add(cargo)) {
+            changeWeight(cargo.getWeight());
+        }
     }
 
     /**
-     * Computes the current speed based on the train's cargo load.
+     * Computes the speed for a given cargo load.
      * The minimum speed is 1 km/min.
      *
+     * @param weight total cargo weight in kg.
      * @return adjusted speed based on weight.
      */
     @Override
-    public double getSpeed() {
-        return Math.max(1.0, BASE_SPEED - (getTotalWeight() / 1000.0));
+    protected double calculateSpeed(int weight) {
+        return Math.max(1.0, BASE_SPEED - (weight / 1000.0));
     }
 
     /**
@@ -140,7 +148,7 @@ public class CargoTrain extends Train {
      */
     public boolean loadCargo(Cargo cargo) {
         if (getTotalWeight() + cargo.getWeight() <= MAX_CAPACITY_KG) {
-            cargoList.add(cargo);
+            addCargo(cargo);
             return true;
         }
         return false;
@@ -150,6 +158,9 @@ public class CargoTrain extends Train {
      * Unloads all regular cargo from the train.
      */
     public void unloadCargo() {
+        for (Cargo cargo : cargoList) {
+            changeWeight(-cargo.getWeight());
+        }
         cargoList.clear();
     }
 
@@ -163,11 +174,11 @@ public class CargoTrain extends Train {
         List<LoadInfoResponse> loads = new ArrayList<>();
 
         // Regular Cargo
-        loads.addAll(cargoList.stream().map(cargo -> new LoadInfoResponse(cargo.getCargoId(), "Cargo"))
+        loads.addAll(cargoList.toList().stream().map(cargo -> new LoadInfoResponse(cargo.getCargoId(), "Cargo"))
                 .collect(Collectors.toList()));
 
         // Perishable Cargo
-        loads.addAll(perishableCargoList.stream()
+        loads.addAll(perishableCargoList.toList().stream()
                 .map(perishable -> new LoadInfoResponse(perishable.getCargoId(), "PerishableCargo"))
                 .collect(Collectors.toList()));
 
@@ -180,19 +191,29 @@ public class CargoTrain extends Train {
      * @return null.
      */
     @Override
-    public List<Passenger> getPassengers() {
+    public Collection<Passenger> getPassengers() {
         return null;
     }
 
     /**
-     * Updates perishable cargo by reducing time left and removing expired items.
+     * Ages perishable cargo by the given number of minutes and removes expired items.
+     * Only the items that expire are looked at.
+     *
+     * @param minutes Number of minutes to age by.
      */
-    public void updatePerishableCargo() {
-        for (PerishableCargo perishableCargo : perishableCargoList) {
-            perishableCargo.decreaseTime(1);
-        }
+    @Override
+    public void agePerishableCargo(int minutes) {
+        changeWeight(-perishableCargoList.age(minutes));
+    }
 
-        CargoManager.removeExpiredPerishableCargo(perishableCargoList);
+    /**
+     * Returns the number of minutes until the next perishable cargo item on the train expires.
+     *
+     * @return minutes until the next expiry, or Integer.MAX_VALUE if there is none.
+     */
+    @Override
+    public int getMinutesUntilNextExpiry() {
+        return perishableCargoList.getMinutesUntilNextExpiry();
     }
 
     /**
@@ -215,6 +236,17 @@ public class CargoTrain extends Train {
         return;
     }
 
+    /**
+     * CargoTrain does not carry passengers, so there is nothing to remove.
+     *
+     * @param stationHandle ignored.
+     * @return empty list.
+     */
+    @Override
+    public List<Passenger> removePassengersFor(int stationHandle) {
+        return List.of();
+    }
+
     /**
      * Removes a perishable cargo item from the train.
      *
@@ -222,6 +254,38 @@ public class CargoTrain extends Train {
      */
     @Override
     public void removeCargo(PerishableCargo cargo) {
-        perishableCargoList.remove(cargo);
+        if (perishableCargoList.remove(cargo)) {
+            changeWeight(-cargo.getWeight());
+        }
+    }
+
+    /**
+     * Removes every regular cargo item headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed cargo, in the order it was loaded.
+     */
+    @Override
+    public List<Cargo> removeCargoFor(int stationHandle) {
+        List<Cargo> removed = cargoList.removeDestination(stationHandle);
+        for (Cargo cargo : removed) {
+            changeWeight(-cargo.getWeight());
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every perishable cargo item headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed perishable cargo, in the order it was loaded.
+     */
+    @Override
+    public List<PerishableCargo> removePerishableCargoFor(int stationHandle) {
+        List<PerishableCargo> removed = perishableCargoList.removeDestination(stationHandle);
+        for (PerishableCargo cargo : removed) {
+            changeWeight(-cargo.getWeight());
+        }
+        return removed;
     }
 }
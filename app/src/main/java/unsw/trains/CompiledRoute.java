@@ -0,0 +1,196 @@
+package unsw.trains;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import unsw.stations.StationHandles;
+
+/**
+ * A train route compiled into station handles, with the next stop from every position in the
+ * route worked out in advance. Trains keep a cursor into the route rather than searching for
+ * their current station, so the next hop and route membership are constant time lookups.
+ *
+ * Compiled routes are immutable, so trains with identical routes share a single instance.
+ */
+public class CompiledRoute {
+    /**
+     * The station IDs of the route, in order.
+     */
+    private final List<String> stationIds;
+
+    /**
+     * The station handle at each index of the route.
+     */
+    private final int[] stationHandles;
+
+    /**
+     * Next index for a linear train moving forward and backward, and for a looping train.
+     */
+    private final int[] forwardSuccessor;
+    private final int[] backwardSuccessor;
+    private final int[] loopSuccessor;
+
+    /**
+     * Handles of every station on the route.
+     */
+    private final BitSet members;
+
+    /**
+     * Handles of every station on the route, each listed once in route order.
+     */
+    private final int[] memberHandles;
+
+    /**
+     * Position of each station handle in {@link #memberHandles}, or -1 if it is not on the route.
+     */
+    private final int[] memberIndexes;
+
+    /**
+     * Compiles a route.
+     *
+     * @param stationIds The station IDs of the route, in order. Must contain at least two stations.
+     * @param handles    Registry used to look up station handles.
+     */
+    public CompiledRoute(List<String> stationIds, StationHandles handles) {
+        int size = stationIds.size();
+        int last = size - 1;
+        this.stationIds = List.copyOf(stationIds);
+        this.stationHandles = new int[size];
+        this.forwardSuccessor = new int[size];
+        this.backwardSuccessor = new int[size];
+        this.loopSuccessor = new int[size];
+        this.members = new BitSet();
+
+        int[] distinct = new int[size];
+        int distinctCount = 0;
+        for (int i = 0; i < size; i++) {
+            stationHandles[i] = handles.get(stationIds.get(i));
+            if (!members.get(stationHandles[i])) {
+                members.set(stationHandles[i]);
+                distinct[distinctCount++] = stationHandles[i];
+            }
+        }
+        this.memberHandles = Arrays.copyOf(distinct, distinctCount);
+        this.memberIndexes = new int[members.length()];
+        Arrays.fill(memberIndexes, -1);
+        for (int i = 0; i < distinctCount; i++) {
+            memberIndexes[memberHandles[i]] = i;
+        }
+
+        // A closed loop such as [A, B, C, A] goes straight from C back to the first A
+        boolean isClosed = size >= 3 && stationHandles[0] == stationHandles[last];
+        for (int i = 0; i < size; i++) {
+            forwardSuccessor[i] = i == last ? i - 1 : i + 1;
+            backwardSuccessor[i] = i == 0 ? i + 1 : i - 1;
+            loopSuccessor[i] = isClosed && i == last - 1 ? 0 : (i + 1) % size;
+        }
+    }
+
+    /**
+     * Returns the station IDs of the route, in order.
+     *
+     * @return unmodifiable list of station IDs.
+     */
+    public List<String> getStationIds() {
+        return stationIds;
+    }
+
+    /**
+     * Returns the number of stops in the route.
+     *
+     * @return route length.
+     */
+    public int size() {
+        return stationHandles.length;
+    }
+
+    /**
+     * Returns the ID of the station at a route index.
+     *
+     * @param index Route index.
+     * @return station ID.
+     */
+    public String getStationId(int index) {
+        return stationIds.get(index);
+    }
+
+    /**
+     * Returns the handle of the station at a route index.
+     *
+     * @param index Route index.
+     * @return station handle.
+     */
+    public int getStationHandle(int index) {
+        return stationHandles[index];
+    }
+
+    /**
+     * Returns the first route index of a station, used to place a new train on the route.
+     *
+     * @param stationId ID of the station.
+     * @return route index, or -1 if the station is not on the route.
+     */
+    public int indexOf(String stationId) {
+        return stationIds.indexOf(stationId);
+    }
+
+    /**
+     * Returns the route index a train travels to next.
+     *
+     * @param index     The train's current route index.
+     * @param isLinear  True if the train goes back and forth along the route, false if it loops.
+     * @param isForward True if a linear train is moving forward.
+     * @return the next route index.
+     */
+    public int next(int index, boolean isLinear, boolean isForward) {
+        if (!isLinear)
+            return loopSuccessor[index];
+
+        return isForward ? forwardSuccessor[index] : backwardSuccessor[index];
+    }
+
+    /**
+     * Checks whether a route index is the first or last stop of the route. Stations that appear
+     * again in the middle of the route are not treated as an end.
+     *
+     * @param index Route index.
+     * @return true if a linear train reverses there.
+     */
+    public boolean isTerminus(int index) {
+        return index == 0 || index == stationHandles.length - 1;
+    }
+
+    /**
+     * Checks whether a station is on the route.
+     *
+     * @param stationHandle Handle of the station.
+     * @return true if the route visits the station.
+     */
+    public boolean contains(int stationHandle) {
+        return stationHandle >= 0 && members.get(stationHandle);
+    }
+
+    /**
+     * Returns the handles of every station on the route, each listed once in route order.
+     * The returned array is shared and must not be modified.
+     *
+     * @return station handles on the route.
+     */
+    public int[] getMemberHandles() {
+        return memberHandles;
+    }
+
+    /**
+     * Returns the position of a station in {@link #getMemberHandles()}.
+     *
+     * @param stationHandle Handle of the station.
+     * @return position among the route's stations, or -1 if the station is not on the route.
+     */
+    public int memberIndexOf(int stationHandle) {
+        if (stationHandle < 0 || stationHandle >= memberIndexes.length)
+            return -1;
+
+        return memberIndexes[stationHandle];
+    }
+}
@@ -0,0 +1,129 @@
+package unsw.trains;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import unsw.response.models.StationInfoResponse;
+import unsw.response.models.TrackInfoResponse;
+import unsw.response.models.TrainInfoResponse;
+
+/**
+ * An immutable copy of every station, track and train in a simulation, taken at one moment.
+ * Once captured it can be read from any thread without locking, while the simulation carries on.
+ */
+public final class NetworkView {
+    private final long version;
+    private final List<String> stationIds;
+    private final List<StationInfoResponse> stations;
+    private final List<String> trackIds;
+    private final List<TrackInfoResponse> tracks;
+    private final List<String> trainIds;
+    private final List<TrainInfoResponse> trains;
+
+    private NetworkView(long version, List<String> stationIds, List<StationInfoResponse> stations,
+            List<String> trackIds, List<TrackInfoResponse> tracks, List<String> trainIds,
+            List<TrainInfoResponse> trains) {
+        this.version = version;
+        this.stationIds = Collections.unmodifiableList(stationIds);
+        this.stations = Collections.unmodifiableList(stations);
+        this.trackIds = Collections.unmodifiableList(trackIds);
+        this.tracks = Collections.unmodifiableList(tracks);
+        this.trainIds = Collections.unmodifiableList(trainIds);
+        this.trains = Collections.unmodifiableList(trains);
+    }
+
+    /**
+     * Captures the current state of a simulation. The caller must stop the simulation from
+     * changing while it is captured.
+     *
+     * @param controller The simulation to capture.
+     * @param version    The number of changes made to the simulation so far, so that a reader can
+     *                   tell whether the view is out of date.
+     * @return the view.
+     */
+    public static NetworkView capture(TrainsController controller, long version) {
+        List<String> stationIds = controller.listStationIds();
+        List<StationInfoResponse> stations = new ArrayList<>(stationIds.size());
+        for (String stationId : stationIds) {
+            stations.add(controller.getStationInfo(stationId));
+        }
+
+        List<String> trackIds = controller.listTrackIds();
+        List<TrackInfoResponse> tracks = new ArrayList<>(trackIds.size());
+        for (String trackId : trackIds) {
+            tracks.add(controller.getTrackInfo(trackId));
+        }
+
+        List<String> trainIds = controller.listTrainIds();
+        List<TrainInfoResponse> trains = new ArrayList<>(trainIds.size());
+        for (String trainId : trainIds) {
+            trains.add(controller.getTrainInfo(trainId));
+        }
+
+        return new NetworkView(version, stationIds, stations, trackIds, tracks, trainIds, trains);
+    }
+
+    /**
+     * Returns the number of changes that had been made to the simulation when the view was captured.
+     *
+     * @return version of the view.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the IDs of every station.
+     *
+     * @return unmodifiable list of station IDs.
+     */
+    public List<String> getStationIds() {
+        return stationIds;
+    }
+
+    /**
+     * Returns every station, in the same order as {@link #getStationIds()}.
+     *
+     * @return unmodifiable list of stations.
+     */
+    public List<StationInfoResponse> getStations() {
+        return stations;
+    }
+
+    /**
+     * Returns the IDs of every track.
+     *
+     * @return unmodifiable list of track IDs.
+     */
+    public List<String> getTrackIds() {
+        return trackIds;
+    }
+
+    /**
+     * Returns every track, in the same order as {@link #getTrackIds()}.
+     *
+     * @return unmodifiable list of tracks.
+     */
+    public List<TrackInfoResponse> getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Returns the IDs of every train.
+     *
+     * @return unmodifiable list of train IDs.
+     */
+    public List<String> getTrainIds() {
+        return trainIds;
+    }
+
+    /**
+     * Returns every train, in the same order as {@link #getTrainIds()}.
+     *
+     * @return unmodifiable list of trains.
+     */
+    public List<TrainInfoResponse> getTrains() {
+        return trains;
+    }
+}
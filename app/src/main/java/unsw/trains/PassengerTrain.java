@@ -1,14 +1,17 @@
 package unsw.trains;
 
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import unsw.loads.Cargo;
+import unsw.loads.LoadQueue;
 import unsw.loads.Passenger;
 import unsw.loads.PerishableCargo;
 import unsw.response.models.LoadInfoResponse;
 import unsw.utils.Position;
+import unsw.utils.TrainType;
 
 /**
  * Represents a Passenger Train that can carry passengers only.
@@ -19,7 +22,13 @@ public class PassengerTrain extends Train {
     private static final int MAX_CAPACITY_KG = 3500;
     private static final int PASSENGER_WEIGHT = 70; // Each passenger weighs 70kg
 
-    private List<Passenger> passengers;
+    private LoadQueue<Passenger> passengers;
+
+    /**
+     * Read-only view of the passengers. Passengers must board and leave through the train so
+     * that its total weight stays up to date.
+     */
+    private Collection<Passenger> passengersView;
 
     /**
      * Constructs a new PassengerTrain with the specified ID, position, and route.
@@ -29,17 +38,19 @@ public class PassengerTrain extends Train {
      * @param route    List of station IDs defining the train's path.
      */
     public PassengerTrain(String trainId, Position position, List<String> route) {
-        super(trainId, position, route, "PassengerTrain");
-        this.passengers = new ArrayList<>();
+        super(trainId, position, route, TrainType.PASSENGER_TRAIN);
+        this.passengers = new LoadQueue<>();
+        this.passengersView = Collections.unmodifiableCollection(passengers);
     }
 
     /**
-     * Returns the constant speed of the passenger train (2 km/min).
+     * Returns the constant speed of the passenger train (2 km/min), which does not depend on weight.
      *
+     * @param weight ignored.
      * @return fixed speed value.
      */
     @Override
-    public double getSpeed() {
+    protected double calculateSpeed(int weight) {
         return SPEED;
     }
 
@@ -52,32 +63,13 @@ public class PassengerTrain extends Train {
         return MAX_CAPACITY_KG;
     }
 
-    /**
-     * Calculates the current total weight of passengers on the train.
-     *
-     * @return total passenger weight in kg.
-     */
-    @Override
-    public int getTotalWeight() {
-        return passengers.size() * PASSENGER_WEIGHT;
-    }
-
     /**
      * Checks if the train has capacity for additional passengers.
      *
      * @return true if under max capacity, false otherwise.
      */
     public boolean hasCapacity() {
-        return getCurrentPassengerWeight() < MAX_CAPACITY_KG;
-    }
-
-    /**
-     * Helper method to calculate total passenger weight.
-     *
-     * @return total passenger weight in kg.
-     */
-    private int getCurrentPassengerWeight() {
-        return passengers.size() * PASSENGER_WEIGHT;
+        return getTotalWeight() < MAX_CAPACITY_KG;
     }
 
     /**
@@ -86,8 +78,8 @@ public class PassengerTrain extends Train {
      * @param p the passenger to add.
      */
     public void addPassenger(Passenger p) {
-        if (hasCapacity()) {
-            passengers.add(p);
+        if (hasCapacity() && passengers.add(p)) {
+            changeWeight(PASSENGER_WEIGHT);
         }
     }
 
@@ -97,7 +89,22 @@ public class PassengerTrain extends Train {
      * @param p the passenger to remove.
      */
     public void removePassenger(Passenger p) {
-        passengers.remove(p);
+        if (passengers.remove(p)) {
+            changeWeight(-PASSENGER_WEIGHT);
+        }
+    }
+
+    /**
+     * Removes every passenger headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed passengers, in the order they boarded.
+     */
+    @Override
+    public List<Passenger> removePassengersFor(int stationHandle) {
+        List<Passenger> removed = passengers.removeDestination(stationHandle);
+        changeWeight(-removed.size() * PASSENGER_WEIGHT);
+        return removed;
     }
 
     /**
@@ -106,8 +113,8 @@ public class PassengerTrain extends Train {
      * @return list of passengers.
      */
     @Override
-    public List<Passenger> getPassengers() {
-        return passengers;
+    public Collection<Passenger> getPassengers() {
+        return passengersView;
     }
 
     /**
@@ -117,7 +124,7 @@ public class PassengerTrain extends Train {
      */
     @Override
     public List<LoadInfoResponse> getLoadsInfo() {
-        return getPassengers().stream().map(passenger -> new LoadInfoResponse(passenger.getPassengerId(), "Passenger"))
+        return passengers.toList().stream().map(passenger -> new LoadInfoResponse(passenger.getPassengerId(), "Passenger"))
                 .collect(Collectors.toList());
     }
 
@@ -127,7 +134,7 @@ public class PassengerTrain extends Train {
      * @return null.
      */
     @Override
-    public List<Cargo> getCargo() {
+    public Collection<Cargo> getCargo() {
         return null;
     }
 
@@ -137,7 +144,7 @@ public class PassengerTrain extends Train {
      * @return null.
      */
     @Override
-    public List<PerishableCargo> getPerishableCargo() {
+    public Collection<PerishableCargo> getPerishableCargo() {
         return null;
     }
 
@@ -181,11 +188,45 @@ public class PassengerTrain extends Train {
         return;
     }
 
+    /**
+     * PassengerTrain does not carry regular cargo, so there is nothing to remove.
+     *
+     * @param stationHandle ignored.
+     * @return empty list.
+     */
+    @Override
+    public List<Cargo> removeCargoFor(int stationHandle) {
+        return List.of();
+    }
+
+    /**
+     * PassengerTrain does not carry perishable cargo, so there is nothing to remove.
+     *
+     * @param stationHandle ignored.
+     * @return empty list.
+     */
+    @Override
+    public List<PerishableCargo> removePerishableCargoFor(int stationHandle) {
+        return List.of();
+    }
+
     /**
      * PassengerTrain does not carry perishable cargo, so this method does nothing.
+     *
+     * @param minutes ignored.
      */
     @Override
-    public void updatePerishableCargo() {
+    public void agePerishableCargo(int minutes) {
         return;
     }
+
+    /**
+     * PassengerTrain does not carry perishable cargo, so nothing expires.
+     *
+     * @return Integer.MAX_VALUE.
+     */
+    @Override
+    public int getMinutesUntilNextExpiry() {
+        return Integer.MAX_VALUE;
+    }
 }
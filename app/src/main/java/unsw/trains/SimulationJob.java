@@ -0,0 +1,201 @@
+package unsw.trains;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import unsw.utils.SimulationJobState;
+import unsw.utils.SimulationMode;
+
+/**
+ * A simulation of a number of minutes, run in short slices, either in the background or for a
+ * caller waiting on it. Between slices the job reports its progress, and stops if it has been
+ * cancelled or has used up its wall-clock budget, so it never runs for much longer than a slice
+ * after being told to stop.
+ *
+ * Slices start at one minute and double in length while they finish quickly, so quiet
+ * stretches can still be skipped in one call in {@link SimulationMode#NEXT_EVENT} mode.
+ * Simulating in slices gives the same results as a single call.
+ */
+public class SimulationJob {
+    /**
+     * Longest a slice should take, and so roughly how long stopping a job can take.
+     */
+    private static final long SLICE_TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final String jobId;
+    private final int length;
+    private final long budgetNanos;
+
+    private volatile SimulationJobState state = SimulationJobState.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile int minutesSimulated;
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile RuntimeException failure;
+
+    /**
+     * Constructs a job.
+     *
+     * @param jobId        Unique identifier for the job.
+     * @param length       Number of minutes to simulate.
+     * @param budgetMillis Wall-clock time the job may run for, or 0 for no limit.
+     */
+    public SimulationJob(String jobId, int length, long budgetMillis) {
+        this.jobId = jobId;
+        this.length = length;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+    }
+
+    /**
+     * Runs the job on the calling thread, unless it was cancelled before it started.
+     *
+     * @param simulator Simulates the given number of minutes, such as by calling
+     *                  {@link TrainsController#simulate(int)} while holding the controller's lock.
+     */
+    public void run(IntConsumer simulator) {
+        if (cancelRequested) {
+            finish(SimulationJobState.CANCELLED);
+            return;
+        }
+
+        startNanos = System.nanoTime();
+        state = SimulationJobState.RUNNING;
+        int slice = 1;
+        try {
+            while (minutesSimulated < length) {
+                int minutes = Math.min(slice, length - minutesSimulated);
+                long sliceStart = System.nanoTime();
+                simulator.accept(minutes);
+                minutesSimulated += minutes;
+
+                long now = System.nanoTime();
+                if (now - sliceStart < SLICE_TARGET_NANOS / 2) {
+                    slice = Math.min(slice * 2, length);
+                } else if (now - sliceStart > SLICE_TARGET_NANOS) {
+                    slice = Math.max(slice / 2, 1);
+                }
+
+                if (cancelRequested && minutesSimulated < length) {
+                    finish(SimulationJobState.CANCELLED);
+                    return;
+                }
+                if (budgetNanos > 0 && now - startNanos >= budgetNanos && minutesSimulated < length) {
+                    finish(SimulationJobState.TIMED_OUT);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            finish(SimulationJobState.FAILED);
+            return;
+        }
+        finish(SimulationJobState.COMPLETED);
+    }
+
+    /**
+     * Asks the job to stop. A queued job will not start; a running job stops after its current slice.
+     *
+     * @return true if the job had not already finished.
+     */
+    public boolean cancel() {
+        cancelRequested = true;
+        return !isFinished();
+    }
+
+    /**
+     * Returns the job's identifier.
+     *
+     * @return job ID.
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Returns the number of minutes the job was asked to simulate.
+     *
+     * @return length of the job.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the stage the job is at.
+     *
+     * @return job state.
+     */
+    public SimulationJobState getState() {
+        return state;
+    }
+
+    /**
+     * Checks if the job has stopped, whether or not it simulated every minute.
+     *
+     * @return true if the job is finished.
+     */
+    public boolean isFinished() {
+        SimulationJobState current = state;
+        return current != SimulationJobState.QUEUED && current != SimulationJobState.RUNNING;
+    }
+
+    /**
+     * Returns the number of minutes simulated so far.
+     *
+     * @return current tick of the job.
+     */
+    public int getMinutesSimulated() {
+        return minutesSimulated;
+    }
+
+    /**
+     * Returns how long the job has been running, or ran for if it is finished.
+     *
+     * @return elapsed time in milliseconds, or 0 if the job has not started.
+     */
+    public long getElapsedMillis() {
+        if (startNanos == 0)
+            return 0;
+
+        long end = isFinished() ? endNanos : System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    /**
+     * Returns the average number of minutes simulated per second of wall-clock time.
+     *
+     * @return simulation speed, or 0 if the job has not started.
+     */
+    public double getTicksPerSecond() {
+        if (startNanos == 0)
+            return 0;
+
+        long end = isFinished() ? endNanos : System.nanoTime();
+        return minutesSimulated / Math.max((end - startNanos) / 1e9, 1e-9);
+    }
+
+    /**
+     * Returns the message of the exception that stopped the job.
+     *
+     * @return error message, or null if the job has not failed.
+     */
+    public String getError() {
+        RuntimeException current = failure;
+        return current == null ? null : current.getMessage();
+    }
+
+    /**
+     * Returns the exception that stopped the job, such as to rethrow it when the job was run
+     * on behalf of a caller waiting for it.
+     *
+     * @return the exception, or null if the job has not failed.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    private void finish(SimulationJobState finalState) {
+        endNanos = System.nanoTime();
+        state = finalState;
+    }
+}
@@ -1,12 +1,15 @@
 package unsw.trains;
 
+import java.util.Collection;
 import java.util.List;
 
 import unsw.loads.Cargo;
 import unsw.loads.Passenger;
 import unsw.loads.PerishableCargo;
 import unsw.response.models.LoadInfoResponse;
+import unsw.tracks.Track;
 import unsw.utils.Position;
+import unsw.utils.TrainType;
 
 /**
  * Abstract base class representing a train that can carry passengers and/or cargo.
@@ -14,10 +17,26 @@ import unsw.utils.Position;
  */
 public abstract class Train {
     private String trainId;
-    private Position position;
     private List<String> route;
-    private String type;
-    private boolean isMovingForward;
+    private TrainType type;
+
+    /**
+     * The route compiled into station handles, shared with other trains on the same route.
+     */
+    private CompiledRoute compiledRoute;
+
+    /**
+     * Running total weight of the train's load, and the speed for that weight. Both are
+     * updated whenever load is added or removed, rather than recalculated on every call.
+     */
+    private int totalWeight;
+    private double speed;
+
+    /**
+     * Store holding this train's position, direction and current segment.
+     */
+    private TrainStateStore stateStore;
+    private int handle;
 
     /**
      * Constructs a train with given ID, position, route, and type.
@@ -25,33 +44,56 @@ public abstract class Train {
      * @param trainId  Unique identifier for the train.
      * @param position Starting position of the train.
      * @param route    List of station IDs defining the route.
-     * @param type     Type of the train (e.g., "PassengerTrain", "CargoTrain").
+     * @param type     Type of the train, which determines its capabilities.
      */
-    public Train(String trainId, Position position, List<String> route, String type) {
+    public Train(String trainId, Position position, List<String> route, TrainType type) {
         this.trainId = trainId;
-        this.position = position;
         this.route = route;
         this.type = type;
-        this.isMovingForward = true;
+        this.speed = calculateSpeed(0);
+        this.stateStore = new TrainStateStore(1);
+        this.handle = stateStore.add(position.getX(), position.getY(), true);
+    }
+
+    /**
+     * Moves this train's state into a shared store, so it can be moved together with
+     * the other trains in that store.
+     *
+     * @param store The store to move into.
+     */
+    void attachTo(TrainStateStore store) {
+        int newHandle = store.add(getX(), getY(), isMovingForward());
+        this.stateStore = store;
+        this.handle = newHandle;
+    }
+
+    /**
+     * Sets the compiled form of this train's route and places the train on it.
+     *
+     * @param compiled The compiled route.
+     * @param cursor   Route index of the station the train starts at, or -1 if it is not on the route.
+     */
+    void attachRoute(CompiledRoute compiled, int cursor) {
+        this.compiledRoute = compiled;
+        stateStore.setRouteCursor(handle, cursor);
+    }
+
+    /**
+     * Gets the handle of this train in its state store.
+     *
+     * @return train handle.
+     */
+    int getHandle() {
+        return handle;
     }
 
     /**
      * Gets the current speed of the train based on its type and load.
-     * Subclasses may override this for custom behavior.
      *
      * @return speed in km/min.
      */
     public double getSpeed() {
-        switch (getType()) {
-        case "PassengerTrain":
-            return 2.0;
-        case "CargoTrain":
-            return Math.max(1.0, 3.0 - getTotalWeight() / 1000.0);
-        case "BulletTrain":
-            return Math.max(2.0, 5.0 - getTotalWeight() / 1000.0);
-        default:
-            throw new IllegalArgumentException("Unknown train type: " + getType());
-        }
+        return speed;
     }
 
     /**
@@ -59,7 +101,42 @@ public abstract class Train {
      *
      * @return total weight in kg.
      */
-    public abstract int getTotalWeight();
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Returns the speed the train would travel at after taking on more load.
+     *
+     * @param addedWeight Weight of the load to add, in kg.
+     * @return speed with the added load.
+     */
+    public double getSpeedWithAddedWeight(int addedWeight) {
+        return calculateSpeed(totalWeight + addedWeight);
+    }
+
+    /**
+     * Calculates the speed of the train when carrying the given weight.
+     * Each kind of train provides its own speed model.
+     *
+     * @param weight Total weight of the load in kg.
+     * @return speed in km/min.
+     */
+    protected abstract double calculateSpeed(int weight);
+
+    /**
+     * Updates the running total weight after load is added or removed.
+     * Subclasses must call this whenever their load changes.
+     *
+     * @param delta Change in weight in kg.
+     */
+    protected void changeWeight(int delta) {
+        if (delta == 0)
+            return;
+
+        totalWeight += delta;
+        speed = calculateSpeed(totalWeight);
+    }
 
     /**
      * Gets the unique ID of the train.
@@ -71,12 +148,30 @@ public abstract class Train {
     }
 
     /**
-     * Gets the current position of the train.
+     * Gets a snapshot of the current position of the train.
      *
      * @return current Position object.
      */
     public Position getPosition() {
-        return position;
+        return new Position(getX(), getY());
+    }
+
+    /**
+     * Gets the current x-coordinate of the train.
+     *
+     * @return x-coordinate.
+     */
+    public double getX() {
+        return stateStore.getX(handle);
+    }
+
+    /**
+     * Gets the current y-coordinate of the train.
+     *
+     * @return y-coordinate.
+     */
+    public double getY() {
+        return stateStore.getY(handle);
     }
 
     /**
@@ -88,12 +183,48 @@ public abstract class Train {
         return route;
     }
 
+    /**
+     * Gets the compiled form of the train's route.
+     *
+     * @return compiled route.
+     */
+    public CompiledRoute getCompiledRoute() {
+        return compiledRoute;
+    }
+
+    /**
+     * Gets the route index of the station the train is at.
+     *
+     * @return route index, or -1 if the train is not at a station on its route.
+     */
+    public int getRouteCursor() {
+        return stateStore.getRouteCursor(handle);
+    }
+
+    /**
+     * Sets the route index of the station the train is at.
+     *
+     * @param cursor Route index, or -1 if the train is not at a station on its route.
+     */
+    public void setRouteCursor(int cursor) {
+        stateStore.setRouteCursor(handle, cursor);
+    }
+
     /**
      * Gets the type of the train (as a string).
      *
      * @return train type.
      */
     public String getType() {
+        return type.getName();
+    }
+
+    /**
+     * Gets the type of the train and its capabilities.
+     *
+     * @return train type.
+     */
+    public TrainType getTrainType() {
         return type;
     }
 
@@ -103,14 +234,95 @@ public abstract class Train {
      * @param newPosition new Position to set.
      */
     public void setPosition(Position newPosition) {
-        this.position = newPosition;
+        stateStore.setPosition(handle, newPosition.getX(), newPosition.getY());
+    }
+
+    /**
+     * Sets the position of the train without allocating a Position.
+     *
+     * @param x New x-coordinate.
+     * @param y New y-coordinate.
+     */
+    public void setPosition(double x, double y) {
+        stateStore.setPosition(handle, x, y);
+    }
+
+    /**
+     * Starts the train travelling toward its next station.
+     *
+     * @param distance Distance to the next station.
+     * @param unitX    X-component of the unit direction of travel.
+     * @param unitY    Y-component of the unit direction of travel.
+     */
+    public void startSegment(double distance, double unitX, double unitY) {
+        stateStore.startSegment(handle, distance, unitX, unitY);
+    }
+
+    /**
+     * Returns the distance the train has left to its next station.
+     *
+     * @return distance left, or -1 if the train has not started travelling a segment.
+     */
+    public double getRemainingDistance() {
+        return stateStore.getRemainingDistance(handle);
+    }
+
+    /**
+     * Returns the x-component of the unit direction of the train's current segment.
+     *
+     * @return x-component of the direction of travel.
+     */
+    public double getDirectionX() {
+        return stateStore.getDirectionX(handle);
+    }
+
+    /**
+     * Returns the y-component of the unit direction of the train's current segment.
+     *
+     * @return y-component of the direction of travel.
+     */
+    public double getDirectionY() {
+        return stateStore.getDirectionY(handle);
+    }
+
+    /**
+     * Moves the train along its current segment.
+     *
+     * @param distance Distance to travel.
+     */
+    public void travel(double distance) {
+        stateStore.travel(handle, distance);
+    }
+
+    /**
+     * Marks the train as no longer travelling a segment.
+     */
+    public void endSegment() {
+        stateStore.endSegment(handle);
+    }
+
+    /**
+     * Loads the segment the train is travelling, so it can be moved in bulk by its state store.
+     *
+     * @param speed        Speed of the train for this segment.
+     * @param track        Track between the stations, or null.
+     */
+    public void loadSegment(double speed, Track track) {
+        stateStore.loadSegment(handle, speed, track);
+    }
+
+    /**
+     * Clears the loaded segment, so the train is not moved in bulk.
+     */
+    public void clearSegment() {
+        stateStore.clearSegment(handle);
     }
 
     /**
      * Reverses the direction of the train on its route.
      */
     public void reverseDirection() {
-        this.isMovingForward = !this.isMovingForward;
+        stateStore.setMovingForward(handle, !stateStore.isMovingForward(handle));
     }
 
     /**
@@ -119,29 +331,29 @@ public abstract class Train {
      * @return true if moving forward, false otherwise.
      */
     public boolean isMovingForward() {
-        return isMovingForward;
+        return stateStore.isMovingForward(handle);
     }
 
     /**
-     * Returns the list of passengers currently on the train.
+     * Returns the passengers currently on the train.
      *
-     * @return list of passengers.
+     * @return passengers, grouped by destination.
      */
-    public abstract List<Passenger> getPassengers();
+    public abstract Collection<Passenger> getPassengers();
 
     /**
-     * Returns the list of regular cargo items on the train.
+     * Returns the regular cargo items on the train.
      *
-     * @return list of cargo.
+     * @return cargo, grouped by destination.
      */
-    public abstract List<Cargo> getCargo();
+    public abstract Collection<Cargo> getCargo();
 
     /**
-     * Returns the list of perishable cargo items on the train.
+     * Returns the perishable cargo items on the train.
      *
-     * @return list of perishable cargo.
+     * @return perishable cargo, grouped by destination.
      */
-    public abstract List<PerishableCargo> getPerishableCargo();
+    public abstract Collection<PerishableCargo> getPerishableCargo();
 
     /**
      * Adds a passenger to the train.
@@ -157,6 +369,14 @@ public abstract class Train {
      */
     public abstract void removePassenger(Passenger passenger);
 
+    /**
+     * Removes every passenger headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed passengers, in the order they boarded.
+     */
+    public abstract List<Passenger> removePassengersFor(int stationHandle);
+
     /**
      * Adds regular cargo to the train.
      *
@@ -185,13 +405,29 @@ public abstract class Train {
      */
     public abstract void removeCargo(Cargo cargo);
 
+    /**
+     * Removes every regular cargo item headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed cargo, in the order it was loaded.
+     */
+    public abstract List<Cargo> removeCargoFor(int stationHandle);
+
+    /**
+     * Removes every perishable cargo item headed for a station.
+     *
+     * @param stationHandle Handle of the destination station.
+     * @return the removed perishable cargo, in the order it was loaded.
+     */
+    public abstract List<PerishableCargo> removePerishableCargoFor(int stationHandle);
+
     /**
      * Returns true if the train is capable of carrying passengers.
      *
      * @return true if can carry passengers, false otherwise.
      */
     public boolean canCarryPassengers() {
-        return this.type.equals("PassengerTrain") || this.type.equals("BulletTrain");
+        return type.carriesPassengers();
     }
 
     /**
@@ -200,7 +436,7 @@ public abstract class Train {
      * @return true if can carry cargo, false otherwise.
      */
     public boolean canCarryCargo() {
-        return this.type.equals("CargoTrain") || this.type.equals("BulletTrain");
+        return type.carriesCargo();
     }
 
     /**
@@ -218,7 +454,23 @@ public abstract class Train {
     public abstract boolean hasCapacity();
 
     /**
-     * Updates perishable cargo on the train (e.g., reduce time or remove expired).
+     * Updates perishable cargo on the train, ageing it by one minute and removing any that expires.
+     */
+    public void updatePerishableCargo() {
+        agePerishableCargo(1);
+    }
+
+    /**
+     * Ages perishable cargo on the train by the given number of minutes, removing any that expires.
+     *
+     * @param minutes Number of minutes to age by.
+     */
+    public abstract void agePerishableCargo(int minutes);
+
+    /**
+     * Returns the number of minutes until the next perishable cargo item on the train expires.
+     *
+     * @return minutes until the next expiry, or Integer.MAX_VALUE if there is none.
      */
-    public abstract void updatePerishableCargo();
+    public abstract int getMinutesUntilNextExpiry();
 }
@@ -0,0 +1,324 @@
+package unsw.trains;
+
+import java.util.Arrays;
+
+import unsw.tracks.Track;
+
+/**
+ * Struct-of-arrays store for the movement state of every train, indexed by a dense
+ * train handle. Trains created through the controller keep their position and direction
+ * here, and {@link Train} reads and writes through to it.
+ *
+ * The store also holds the segment each train is currently travelling (distance left,
+ * unit direction, speed and track), which lets minutes without arrivals move every
+ * train in a single loop over primitive arrays.
+ */
+public class TrainStateStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+
+    private double[] x;
+    private double[] y;
+    private boolean[] movingForward;
+
+    /**
+     * Index of the train's current station in its route, or -1 if the train is not at a station on its route.
+     */
+    private int[] routeCursor;
+
+    /**
+     * Whether the train's segment is loaded for bulk movement.
+     */
+    private boolean[] segmentLoaded;
+    private double[] speed;
+
+    /**
+     * Distance left to the next station, or -1 if the train has not started travelling a segment.
+     */
+    private double[] remaining;
+    private double[] directionX;
+    private double[] directionY;
+
+    /**
+     * The track of the loaded segment, or null if the segment has no track.
+     */
+    private Track[] segmentTrack;
+
+    /**
+     * Constructs an empty TrainStateStore.
+     */
+    public TrainStateStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty TrainStateStore with room for the given number of trains.
+     *
+     * @param capacity Initial number of train slots.
+     */
+    public TrainStateStore(int capacity) {
+        int initialCapacity = Math.max(1, capacity);
+        this.x = new double[initialCapacity];
+        this.y = new double[initialCapacity];
+        this.movingForward = new boolean[initialCapacity];
+        this.routeCursor = new int[initialCapacity];
+        this.segmentLoaded = new boolean[initialCapacity];
+        this.speed = new double[initialCapacity];
+        this.remaining = new double[initialCapacity];
+        this.directionX = new double[initialCapacity];
+        this.directionY = new double[initialCapacity];
+        this.segmentTrack = new Track[initialCapacity];
+    }
+
+    /**
+     * Allocates a slot for a new train.
+     *
+     * @param posX            Starting x-coordinate.
+     * @param posY            Starting y-coordinate.
+     * @param isMovingForward Starting direction.
+     * @return handle of the new slot.
+     */
+    public int add(double posX, double posY, boolean isMovingForward) {
+        if (size == x.length) {
+            grow();
+        }
+
+        int handle = size++;
+        x[handle] = posX;
+        y[handle] = posY;
+        movingForward[handle] = isMovingForward;
+        routeCursor[handle] = -1;
+        remaining[handle] = -1;
+        return handle;
+    }
+
+    /**
+     * Returns the number of allocated train slots.
+     *
+     * @return number of slots.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x-coordinate of a train.
+     *
+     * @param handle Train handle.
+     * @return x-coordinate.
+     */
+    public double getX(int handle) {
+        return x[handle];
+    }
+
+    /**
+     * Returns the y-coordinate of a train.
+     *
+     * @param handle Train handle.
+     * @return y-coordinate.
+     */
+    public double getY(int handle) {
+        return y[handle];
+    }
+
+    /**
+     * Sets the position of a train.
+     *
+     * @param handle Train handle.
+     * @param posX   New x-coordinate.
+     * @param posY   New y-coordinate.
+     */
+    public void setPosition(int handle, double posX, double posY) {
+        x[handle] = posX;
+        y[handle] = posY;
+    }
+
+    /**
+     * Returns whether a train is moving forward on its route.
+     *
+     * @param handle Train handle.
+     * @return true if moving forward.
+     */
+    public boolean isMovingForward(int handle) {
+        return movingForward[handle];
+    }
+
+    /**
+     * Sets the direction of a train on its route.
+     *
+     * @param handle          Train handle.
+     * @param isMovingForward True if moving forward.
+     */
+    public void setMovingForward(int handle, boolean isMovingForward) {
+        movingForward[handle] = isMovingForward;
+    }
+
+    /**
+     * Returns the route index of the station a train is at.
+     *
+     * @param handle Train handle.
+     * @return route index, or -1 if the train is not at a station on its route.
+     */
+    public int getRouteCursor(int handle) {
+        return routeCursor[handle];
+    }
+
+    /**
+     * Sets the route index of the station a train is at.
+     *
+     * @param handle Train handle.
+     * @param cursor Route index, or -1 if the train is not at a station on its route.
+     */
+    public void setRouteCursor(int handle, int cursor) {
+        routeCursor[handle] = cursor;
+    }
+
+    /**
+     * Starts a train travelling toward its next station.
+     *
+     * @param handle     Train handle.
+     * @param distance   Distance to the next station.
+     * @param unitX      X-component of the unit direction of travel.
+     * @param unitY      Y-component of the unit direction of travel.
+     */
+    public void startSegment(int handle, double distance, double unitX, double unitY) {
+        remaining[handle] = distance;
+        directionX[handle] = unitX;
+        directionY[handle] = unitY;
+    }
+
+    /**
+     * Returns the distance a train has left to its next station.
+     *
+     * @param handle Train handle.
+     * @return distance left, or -1 if the train has not started travelling a segment.
+     */
+    public double getRemainingDistance(int handle) {
+        return remaining[handle];
+    }
+
+    /**
+     * Returns the x-component of the unit direction of a train's current segment.
+     *
+     * @param handle Train handle.
+     * @return x-component of the direction of travel.
+     */
+    public double getDirectionX(int handle) {
+        return directionX[handle];
+    }
+
+    /**
+     * Returns the y-component of the unit direction of a train's current segment.
+     *
+     * @param handle Train handle.
+     * @return y-component of the direction of travel.
+     */
+    public double getDirectionY(int handle) {
+        return directionY[handle];
+    }
+
+    /**
+     * Moves a train along its current segment.
+     *
+     * @param handle   Train handle.
+     * @param distance Distance to travel, which must be less than the distance left.
+     */
+    public void travel(int handle, double distance) {
+        x[handle] += directionX[handle] * distance;
+        y[handle] += directionY[handle] * distance;
+        remaining[handle] -= distance;
+    }
+
+    /**
+     * Marks a train as no longer travelling a segment, such as when it arrives at a station.
+     *
+     * @param handle Train handle.
+     */
+    public void endSegment(int handle) {
+        remaining[handle] = -1;
+    }
+
+    /**
+     * Loads the segment a train is travelling for bulk movement. The segment must already
+     * have been started with {@link #startSegment}.
+     *
+     * @param handle       Train handle.
+     * @param trainSpeed   Speed of the train for this segment.
+     * @param track        Track between the stations, or null.
+     */
+    public void loadSegment(int handle, double trainSpeed, Track track) {
+        segmentLoaded[handle] = true;
+        speed[handle] = trainSpeed;
+        segmentTrack[handle] = track;
+    }
+
+    /**
+     * Clears the loaded segment of a train, so it does not move.
+     *
+     * @param handle Train handle.
+     */
+    public void clearSegment(int handle) {
+        segmentLoaded[handle] = false;
+        segmentTrack[handle] = null;
+    }
+
+    /**
+     * Checks whether any train with a loaded segment is within one minute of its next station.
+     *
+     * @param order Train handles to check.
+     * @param count Number of handles in {@code order} to check.
+     * @return true if any train would arrive this minute.
+     */
+    public boolean isAnyArrivalDue(int[] order, int count) {
+        for (int i = 0; i < count; i++) {
+            int h = order[i];
+            if (!segmentLoaded[h])
+                continue;
+
+            if (speed[h] >= remaining[h])
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves every train with a loaded segment one minute toward its next station, in the given
+     * order. Trains on a broken track wait, and trains on a breakable track wear it down. The
+     * caller must ensure no train arrives this minute (see {@link #isAnyArrivalDue}).
+     *
+     * @param order Train handles in train ID order.
+     * @param count Number of handles in {@code order} to move.
+     */
+    public void advance(int[] order, int count) {
+        for (int i = 0; i < count; i++) {
+            int h = order[i];
+            if (!segmentLoaded[h])
+                continue;
+
+            Track track = segmentTrack[h];
+            if (track != null && track.isBroken())
+                continue;
+
+            travel(h, speed[h]);
+
+            if (track != null) {
+                track.decreaseDurability(0);
+            }
+        }
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        movingForward = Arrays.copyOf(movingForward, capacity);
+        routeCursor = Arrays.copyOf(routeCursor, capacity);
+        segmentLoaded = Arrays.copyOf(segmentLoaded, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        remaining = Arrays.copyOf(remaining, capacity);
+        directionX = Arrays.copyOf(directionX, capacity);
+        directionY = Arrays.copyOf(directionY, capacity);
+        segmentTrack = Arrays.copyOf(segmentTrack, capacity);
+    }
+}
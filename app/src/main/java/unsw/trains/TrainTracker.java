@@ -1,13 +1,15 @@
 package unsw.trains;
 
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import unsw.stations.Station;
 import unsw.tracks.Track;
 
 /**
  * Utility class responsible for tracking the location of trains.
- * It checks whether a train is currently at a station or on a track.
+ * Locations are kept in a registry that is updated as trains arrive at and
+ * depart from stations, so lookups do not need to scan the network.
  */
 public class TrainTracker {
     /**
@@ -25,6 +27,12 @@ public class TrainTracker {
      */
     private Map<String, Track> tracks;
 
+    /**
+     * Map of train IDs to the ID of the station or track the train is currently at.
+     * Concurrent so that independent trains can be moved in parallel.
+     */
+    private Map<String, String> locations;
+
     /**
      * Constructs a TrainTracker instance using maps of trains, stations, and tracks.
      *
@@ -36,35 +44,49 @@ public class TrainTracker {
         this.trains = trains;
         this.stations = stations;
         this.tracks = tracks;
+        this.locations = new ConcurrentHashMap<>();
     }
 
     /**
      * Gets the current location of a train by its ID.
-     * First checks if the train is at a station, then on a track.
      *
      * @param trainId The ID of the train.
      * @return Station ID, Track ID, or "Unknown" if not found.
      */
     public String getTrainLocation(String trainId) {
-        Train train = trains.get(trainId);
-        if (train == null)
+        if (!trains.containsKey(trainId))
             return "Unknown";
 
-        // Check if train is at a station
-        for (Station station : stations.values()) {
-            if (station.hasTrain(train)) {
-                return station.getStationId();
-            }
-        }
+        return locations.getOrDefault(trainId, "Unknown");
+    }
 
-        // Check if train is on a track
-        for (Track track : tracks.values()) {
-            if (track.hasTrain(train)) {
-                return track.getTrackId();
-            }
-        }
+    /**
+     * Returns the location recorded for a train ID, without checking that the train still exists.
+     *
+     * @param trainId The ID of the train.
+     * @return Station ID, or null if no location is recorded.
+     */
+    public String getRecordedLocation(String trainId) {
+        return locations.get(trainId);
+    }
 
-        return "Unknown";
+    /**
+     * Records that a train has been added to a station.
+     *
+     * @param train     The train that arrived.
+     * @param stationId ID of the station the train is now at.
+     */
+    public void recordArrival(Train train, String stationId) {
+        locations.put(train.getTrainId(), stationId);
+    }
+
+    /**
+     * Records that a train has been removed from its current station.
+     *
+     * @param train The train that departed.
+     */
+    public void recordDeparture(Train train) {
+        locations.remove(train.getTrainId());
     }
 
     /**
@@ -1,28 +1,39 @@
 package unsw.trains;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import unsw.exceptions.InvalidRouteException;
 import unsw.loads.Cargo;
 import unsw.loads.Passenger;
 import unsw.loads.PerishableCargo;
-import unsw.managers.CargoManager;
+import unsw.managers.EtaManager;
+import unsw.managers.ParallelMovementManager;
+import unsw.managers.TrackRepairManager;
 import unsw.managers.TrainMovementManager;
+import unsw.persistence.SnapshotInput;
+import unsw.persistence.SnapshotOutput;
 import unsw.response.models.*;
-import unsw.stations.CargoStation;
-import unsw.stations.CentralStation;
-import unsw.stations.DepotStation;
-import unsw.stations.PassengerStation;
 import unsw.stations.Station;
+import unsw.stations.StationHandles;
 import unsw.utils.Position;
+import unsw.utils.SimulationMode;
+import unsw.utils.StationType;
 import unsw.utils.TrackType;
+import unsw.utils.TrainType;
 import unsw.tracks.BreakableTrack;
 import unsw.tracks.Track;
+import unsw.tracks.TrackIndex;
 
 /**
  * The controller for the Trains system.
@@ -31,20 +42,64 @@ import unsw.tracks.Track;
  * signatures.
  */
 public class TrainsController {
+    private static final Comparator<Train> TRAIN_ID_ORDER = Comparator.comparing(Train::getTrainId);
+
     private Map<String, Station> stations = new HashMap<>();
     private Map<String, Track> tracks = new HashMap<>();
     private Map<String, Train> trains = new HashMap<>();
+    private TrackIndex trackIndex = new TrackIndex();
+    private StationHandles stationHandles = new StationHandles();
+
+    /**
+     * Stations that may hold perishable cargo. A station is added when perishable cargo starts
+     * waiting at it, possibly while trains are moved in parallel, and dropped by the first update
+     * that finds it empty, so stations that never hold perishables are never visited.
+     */
+    private Set<Station> perishableStations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Compiled routes keyed by their station IDs, so trains with identical routes share one.
+     */
+    private Map<List<String>, CompiledRoute> compiledRoutes = new HashMap<>();
+
+    /**
+     * All trains sorted by train ID, kept up to date as trains are created so that
+     * simulating does not need to sort every minute.
+     */
+    private List<Train> sortedTrains = new ArrayList<>();
+
+    /**
+     * Movement state of every train, and the state store handles of {@link #sortedTrains} in the same order.
+     * The handles are rebuilt when next needed after trains are added, so creating many trains in a row
+     * does not copy them once per train.
+     */
+    private TrainStateStore trainStates = new TrainStateStore();
+    private int[] trainOrder = new int[0];
+    private boolean trainOrderStale = false;
 
     private TrainTracker trainTracker;
     private TrainMovementManager trainMovementManager;
+    private ParallelMovementManager parallelMovementManager;
+    private EtaManager etaManager;
+    private TrackRepairManager trackRepairManager = new TrackRepairManager();
+    private SimulationMode simulationMode = SimulationMode.STEP;
+    private boolean parallelMovement = false;
+
+    /**
+     * Minutes this controller has started simulating, including one that failed part way.
+     */
+    private long minutesSimulated;
 
     /**
      * Constructs a new TrainsController and initializes supporting managers.
      */
     public TrainsController() {
         this.trainTracker = new TrainTracker(trains, stations, tracks);
-        this.trainMovementManager = new TrainMovementManager(trains, stations, tracks, trainTracker);
-        CargoManager.setTrainMovementManager(trainMovementManager);
+        this.trainMovementManager = new TrainMovementManager(trains, stations, tracks, trackIndex,
+                trainTracker);
+        this.parallelMovementManager = new ParallelMovementManager(trainMovementManager);
+        this.etaManager = new EtaManager(trainMovementManager);
+        trainMovementManager.setEtaManager(etaManager);
     }
 
     /**
@@ -56,25 +111,23 @@ public class TrainsController {
      * @param y         Y-coordinate.
      */
     public void createStation(String stationId, String type, double x, double y) {
-        Station newStation;
-        switch (type) {
-        case "PassengerStation":
-            newStation = new PassengerStation(stationId, new Position(x, y));
-            break;
-        case "CargoStation":
-            newStation = new CargoStation(stationId, new Position(x, y));
-            break;
-        case "CentralStation":
-            newStation = new CentralStation(stationId, new Position(x, y));
-            break;
-        case "DepotStation":
-            newStation = new DepotStation(stationId, new Position(x, y));
-            break;
-        default:
+        StationType stationType = StationType.fromName(type);
+        if (stationType == null) {
             throw new IllegalArgumentException("Invalid station type: " + type);
         }
 
-        stations.put(stationId, newStation);
+        Station newStation = stationType.create(stationId, new Position(x, y));
+        newStation.setHandle(stationHandles.get(stationId));
+        newStation.setPerishableCargoListener(perishableStations::add);
+        Station replaced = stations.put(stationId, newStation);
+        if (replaced != null) {
+            perishableStations.remove(replaced);
+
+            // A replaced station may have moved, so refresh the cached geometry of its tracks
+            for (Track track : trackIndex.getTracks(stationId)) {
+                cacheGeometry(track);
+            }
+        }
     }
 
     /**
@@ -92,14 +145,12 @@ public class TrainsController {
             throw new IllegalArgumentException("One or both station IDs do not exist!");
         }
 
-        for (Track track : tracks.values()) {
-            if (track.connects(fromStationId, toStationId)) {
-                throw new IllegalArgumentException("A track already exists between these stations.");
-            }
+        if (trackIndex.connects(fromStationId, toStationId)) {
+            throw new IllegalArgumentException("A track already exists between these stations.");
         }
 
         Track newTrack = new Track(trackId, fromStationId, toStationId, TrackType.NORMAL);
-        tracks.put(trackId, newTrack);
+        addTrack(newTrack);
     }
 
     /**
@@ -120,29 +171,62 @@ public class TrainsController {
             throw new IllegalArgumentException("Station does not exist: " + stationId);
         }
 
-        if (!isValidRoute(route, type)) {
+        TrainType trainType = TrainType.fromName(type);
+        if (!isValidRoute(route, trainType)) {
             throw new InvalidRouteException("Invalid route for train type: " + type);
         }
 
-        Position startPosition = firstStation.getPosition();
-        Train newTrain;
-
-        switch (type) {
-        case "PassengerTrain":
-            newTrain = new PassengerTrain(trainId, startPosition, route);
-            break;
-        case "CargoTrain":
-            newTrain = new CargoTrain(trainId, startPosition, route);
-            break;
-        case "BulletTrain":
-            newTrain = new BulletTrain(trainId, startPosition, route);
-            break;
-        default:
+        if (trainType == null) {
             throw new IllegalArgumentException("Invalid train type: " + type);
         }
 
-        trains.put(trainId, newTrain);
+        Train newTrain = trainType.create(trainId, firstStation.getPosition(), route);
+
+        newTrain.attachTo(trainStates);
+        CompiledRoute compiledRoute = compiledRoutes.computeIfAbsent(List.copyOf(route),
+                k -> new CompiledRoute(k, stationHandles));
+        newTrain.attachRoute(compiledRoute, -1);
+        Train replaced = trains.put(trainId, newTrain);
+        if (replaced != null) {
+            etaManager.remove(replaced);
+        }
+        addToTrainOrder(newTrain);
+        trainTracker.recordDeparture(newTrain);
         firstStation.addTrain(newTrain);
+        trainTracker.recordArrival(newTrain, stationId);
+        newTrain.setRouteCursor(compiledRoute.indexOf(stationId));
+    }
+
+    /**
+     * Checks whether a station exists.
+     *
+     * @param stationId ID of the station.
+     * @return true if the station exists.
+     */
+    public boolean hasStation(String stationId) {
+        return stations.containsKey(stationId);
+    }
+
+    /**
+     * Checks whether a station holds as many trains as it can.
+     *
+     * @param stationId ID of the station.
+     * @return true if the station exists and is full.
+     */
+    public boolean isStationFull(String stationId) {
+        Station station = stations.get(stationId);
+        return station != null && station.isFull();
+    }
+
+    /**
+     * Checks whether a track connects two stations, in either direction.
+     *
+     * @param stationA ID of one station.
+     * @param stationB ID of the other station.
+     * @return true if the stations are connected.
+     */
+    public boolean isConnected(String stationA, String stationB) {
+        return trackIndex.connects(stationA, stationB);
     }
 
     /**
@@ -229,34 +313,68 @@ public class TrainsController {
      * Simulates 1 tick of the system: moving trains, updating stations, repairing tracks.
      */
     public void simulate() {
-        List<Train> sortedTrains = new ArrayList<>(trains.values());
-        sortedTrains.sort(Comparator.comparing(Train::getTrainId));
-
-        for (Station station : stations.values()) {
-            station.updatePerishableCargo();
-        }
+        minutesSimulated++;
+        etaManager.startMinute();
+        updatePerishableCargo();
 
-        for (Train train : sortedTrains) {
-            trainMovementManager.moveTrain(train);
-        }
+        forEachTrain(sortedTrains, trainMovementManager::moveTrain);
 
-        for (Track track : tracks.values()) {
-            if (track instanceof BreakableTrack) {
-                ((BreakableTrack) track).repair();
-            }
-        }
+        repairTracks();
     }
 
     /**
-     * Simulate for the specified number of minutes. You should NOT modify
-     * this function.
+     * Simulate for the specified number of minutes, using the current simulation mode.
      */
     public void simulate(int numberOfMinutes) {
+        if (simulationMode == SimulationMode.NEXT_EVENT) {
+            simulateToNextEvents(numberOfMinutes);
+            return;
+        }
+
         for (int i = 0; i < numberOfMinutes; i++) {
             simulate();
         }
     }
 
+    /**
+     * Sets how {@link #simulate(int)} advances the simulation. Both modes produce the same results.
+     *
+     * @param simulationMode The simulation mode to use.
+     */
+    public void setSimulationMode(SimulationMode simulationMode) {
+        this.simulationMode = simulationMode;
+    }
+
+    /**
+     * Sets whether trains that cannot affect each other are moved in parallel in each full minute.
+     * Results are the same as moving every train in train ID order.
+     *
+     * @param parallelMovement True to move independent trains in parallel.
+     */
+    public void setParallelMovement(boolean parallelMovement) {
+        this.parallelMovement = parallelMovement;
+    }
+
+    /**
+     * Returns the number of minutes simulated by this controller, including those simulated before
+     * the snapshot it was restored from was saved. A minute that threw part way through is counted,
+     * since some of it was applied.
+     *
+     * @return minutes simulated.
+     */
+    public long getMinutesSimulated() {
+        return minutesSimulated;
+    }
+
+    /**
+     * Returns the mode currently used by {@link #simulate(int)}.
+     *
+     * @return the simulation mode.
+     */
+    public SimulationMode getSimulationMode() {
+        return simulationMode;
+    }
+
     /**
      * Creates and adds a new passenger to the specified start station.
      *
@@ -266,12 +384,11 @@ public class TrainsController {
      */
     public void createPassenger(String startStationId, String destStationId, String passengerId) {
         Station startStation = stations.get(startStationId);
-        if (startStation == null || (!startStation.getType().equals("PassengerStation")
-                && !startStation.getType().equals("CentralStation"))) {
+        if (startStation == null || !startStation.getStationType().handlesPassengers()) {
             throw new IllegalArgumentException("Invalid start station for a passenger.");
         }
 
-        Passenger passenger = new Passenger(passengerId, destStationId);
+        Passenger passenger = new Passenger(passengerId, destStationId, stationHandles.get(destStationId));
         startStation.addPassenger(passenger);
     }
 
@@ -285,12 +402,11 @@ public class TrainsController {
      */
     public void createCargo(String startStationId, String destStationId, String cargoId, int weight) {
         Station startStation = stations.get(startStationId);
-        if (startStation == null || (!startStation.getType().equals("CargoStation")
-                && !startStation.getType().equals("CentralStation"))) {
+        if (startStation == null || !startStation.getStationType().handlesCargo()) {
             throw new IllegalArgumentException("Invalid start station for cargo.");
         }
 
-        Cargo cargo = new Cargo(cargoId, destStationId, weight);
+        Cargo cargo = new Cargo(cargoId, destStationId, stationHandles.get(destStationId), weight);
         startStation.addCargo(cargo);
     }
 
@@ -310,7 +426,8 @@ public class TrainsController {
             throw new IllegalArgumentException("Invalid station ID");
         }
 
-        PerishableCargo perishableCargo = new PerishableCargo(cargoId, destStationId, weight, minsTillPerish);
+        PerishableCargo perishableCargo = new PerishableCargo(cargoId, destStationId,
+                stationHandles.get(destStationId), weight, minsTillPerish);
         station.addCargo(perishableCargo);
     }
 
@@ -330,15 +447,15 @@ public class TrainsController {
             throw new IllegalArgumentException("One or both station IDs do not exist!");
         }
 
-        for (Track track : tracks.values()) {
-            if (track.connects(fromStationId, toStationId)) {
-                throw new IllegalArgumentException("A track already exists between these stations.");
-            }
+        if (trackIndex.connects(fromStationId, toStationId)) {
+            throw new IllegalArgumentException("A track already exists between these stations.");
         }
         if (isBreakable) {
-            tracks.put(trackId, new BreakableTrack(trackId, fromStationId, toStationId));
+            BreakableTrack track = new BreakableTrack(trackId, fromStationId, toStationId);
+            track.setBreakListener(trackRepairManager::trackBroken);
+            addTrack(track);
         } else {
-            tracks.put(trackId, new Track(trackId, fromStationId, toStationId, TrackType.NORMAL));
+            addTrack(new Track(trackId, fromStationId, toStationId, TrackType.NORMAL));
         }
     }
 
@@ -346,18 +463,439 @@ public class TrainsController {
         // Todo: Task cii
     }
 
+    /**
+     * Writes the full state of the simulation: the number of minutes simulated, stations and their
+     * waiting loads, tracks and their durability, and trains with their position, segment, direction
+     * and loads. Trains replaced by a later train with the same ID are included while they still sit
+     * at a station.
+     *
+     * @param out Snapshot to write to.
+     */
+    public void writeSnapshot(SnapshotOutput out) {
+        out.writeLong(minutesSimulated);
+
+        List<String> handleIds = stationHandles.getStationIds();
+        out.writeInt(handleIds.size());
+        for (String stationId : handleIds) {
+            out.writeString(stationId);
+        }
+
+        out.writeInt(stations.size());
+        for (Station station : stations.values()) {
+            out.writeString(station.getStationId());
+            out.writeString(station.getType());
+            out.writeDouble(station.getPosition().getX());
+            out.writeDouble(station.getPosition().getY());
+            out.writePassengers(station.getPassengersWaiting());
+            out.writeCargo(station.getCargoWaiting());
+            out.writePerishableCargo(station.getPerishableCargoWaiting());
+        }
+
+        out.writeInt(tracks.size());
+        for (Track track : tracks.values()) {
+            out.writeString(track.getTrackId());
+            out.writeString(track.getFromStationId());
+            out.writeString(track.getToStationId());
+            boolean isBreakable = track instanceof BreakableTrack;
+            out.writeBoolean(isBreakable);
+            if (isBreakable) {
+                out.writeInt(track.getDurability());
+                out.writeBoolean(track.isBroken());
+                out.writeBoolean(((BreakableTrack) track).isRepairStarted());
+            }
+        }
+
+        // Trains in train ID order, then replaced trains that are still listed at a station
+        Map<Train, Integer> trainIndexes = new IdentityHashMap<>();
+        List<Train> allTrains = new ArrayList<>(sortedTrains);
+        for (Train train : sortedTrains) {
+            trainIndexes.put(train, trainIndexes.size());
+        }
+        for (Station station : stations.values()) {
+            for (Train train : station.getTrains()) {
+                if (!trainIndexes.containsKey(train)) {
+                    trainIndexes.put(train, trainIndexes.size());
+                    allTrains.add(train);
+                }
+            }
+        }
+
+        out.writeInt(sortedTrains.size());
+        out.writeInt(allTrains.size());
+        for (int i = 0; i < allTrains.size(); i++) {
+            Train train = allTrains.get(i);
+            writeTrain(out, train);
+            if (i < sortedTrains.size()) {
+                out.writeString(trainTracker.getRecordedLocation(train.getTrainId()));
+            }
+        }
+
+        for (Station station : stations.values()) {
+            out.writeString(station.getStationId());
+            out.writeInt(station.getTrains().size());
+            for (Train train : station.getTrains()) {
+                out.writeInt(trainIndexes.get(train));
+            }
+        }
+    }
+
+    /**
+     * Restores the state written by {@link #writeSnapshot}. The network is built directly, without
+     * the validation done by the create methods, since it was valid when it was saved.
+     *
+     * @param in Snapshot to read from.
+     * @throws IllegalStateException if this controller already holds stations, tracks or trains.
+     */
+    public void restoreSnapshot(SnapshotInput in) {
+        if (!stations.isEmpty() || !tracks.isEmpty() || !trains.isEmpty()) {
+            throw new IllegalStateException("A snapshot can only be restored into an empty controller.");
+        }
+
+        minutesSimulated = in.readLong();
+
+        int handleCount = in.readInt();
+        for (int i = 0; i < handleCount; i++) {
+            stationHandles.get(in.readString());
+        }
+
+        int stationCount = in.readInt();
+        for (int i = 0; i < stationCount; i++) {
+            String stationId = in.readString();
+            StationType stationType = StationType.fromName(in.readString());
+            Station station = stationType.create(stationId, new Position(in.readDouble(), in.readDouble()));
+            station.setHandle(stationHandles.get(stationId));
+            station.setPerishableCargoListener(perishableStations::add);
+            in.readPassengers().forEach(station::addPassenger);
+            in.readCargo().forEach(station::addCargo);
+            in.readPerishableCargo().forEach(station::addCargo);
+            stations.put(stationId, station);
+        }
+
+        int trackCount = in.readInt();
+        for (int i = 0; i < trackCount; i++) {
+            String trackId = in.readString();
+            String fromStationId = in.readString();
+            String toStationId = in.readString();
+            if (!in.readBoolean()) {
+                addTrack(new Track(trackId, fromStationId, toStationId, TrackType.NORMAL));
+                continue;
+            }
+
+            BreakableTrack track = new BreakableTrack(trackId, fromStationId, toStationId);
+            track.setBreakListener(trackRepairManager::trackBroken);
+            track.restoreState(in.readInt(), in.readBoolean(), in.readBoolean());
+            if (track.isBroken()) {
+                trackRepairManager.trackBroken(track);
+            }
+            addTrack(track);
+        }
+
+        int liveTrainCount = in.readInt();
+        Train[] restoredTrains = new Train[in.readInt()];
+        for (int i = 0; i < restoredTrains.length; i++) {
+            Train train = readTrain(in);
+            restoredTrains[i] = train;
+            if (i >= liveTrainCount)
+                continue;
+
+            trains.put(train.getTrainId(), train);
+            sortedTrains.add(train);
+            String location = in.readString();
+            if (location != null) {
+                trainTracker.recordArrival(train, location);
+            }
+        }
+        trainOrderStale = true;
+
+        for (int i = 0; i < stationCount; i++) {
+            Station station = stations.get(in.readString());
+            int stationTrainCount = in.readInt();
+            for (int j = 0; j < stationTrainCount; j++) {
+                station.addTrain(restoredTrains[in.readInt()]);
+            }
+        }
+    }
+
     //////////////// Utility Methods ////////////////////////////////////
 
+    /**
+     * Writes a train's type, route, movement state and loads.
+     *
+     * @param out   Snapshot to write to.
+     * @param train The train to write.
+     */
+    private void writeTrain(SnapshotOutput out, Train train) {
+        out.writeString(train.getTrainId());
+        out.writeString(train.getType());
+        out.writeInt(train.getRoute().size());
+        for (String stationId : train.getRoute()) {
+            out.writeString(stationId);
+        }
+
+        out.writeDouble(train.getX());
+        out.writeDouble(train.getY());
+        out.writeBoolean(train.isMovingForward());
+        out.writeInt(train.getRouteCursor());
+        out.writeDouble(train.getRemainingDistance());
+        out.writeDouble(train.getDirectionX());
+        out.writeDouble(train.getDirectionY());
+        out.writePassengers(train.getPassengers());
+        out.writeCargo(train.getCargo());
+        out.writePerishableCargo(train.getPerishableCargo());
+    }
+
+    /**
+     * Reads a train written by {@link #writeTrain}, and places it in the train state store
+     * and on its compiled route.
+     *
+     * @param in Snapshot to read from.
+     * @return the restored train.
+     */
+    private Train readTrain(SnapshotInput in) {
+        String trainId = in.readString();
+        TrainType trainType = TrainType.fromName(in.readString());
+        int routeSize = in.readInt();
+        List<String> route = new ArrayList<>(routeSize);
+        for (int i = 0; i < routeSize; i++) {
+            route.add(in.readString());
+        }
+
+        Train train = trainType.create(trainId, new Position(in.readDouble(), in.readDouble()), route);
+        train.attachTo(trainStates);
+        boolean isMovingForward = in.readBoolean();
+        if (!isMovingForward) {
+            train.reverseDirection();
+        }
+
+        CompiledRoute compiledRoute = compiledRoutes.computeIfAbsent(List.copyOf(route),
+                k -> new CompiledRoute(k, stationHandles));
+        train.attachRoute(compiledRoute, in.readInt());
+
+        double remaining = in.readDouble();
+        double directionX = in.readDouble();
+        double directionY = in.readDouble();
+        if (remaining >= 0) {
+            train.startSegment(remaining, directionX, directionY);
+        }
+
+        in.readPassengers().forEach(train::addPassenger);
+        in.readCargo().forEach(train::addCargo);
+        in.readPerishableCargo().forEach(train::addCargo);
+        return train;
+    }
+
+    /**
+     * Inserts a train into the train ID ordering, replacing any train with the same ID.
+     *
+     * @param train The train to insert.
+     */
+    private void addToTrainOrder(Train train) {
+        int index = Collections.binarySearch(sortedTrains, train, TRAIN_ID_ORDER);
+        if (index >= 0) {
+            sortedTrains.set(index, train);
+        } else {
+            sortedTrains.add(-index - 1, train);
+        }
+        trainOrderStale = true;
+    }
+
+    /**
+     * Returns the state store handles of the trains in train ID order, rebuilding them if trains
+     * have been added since they were last built.
+     *
+     * @return handles of {@link #sortedTrains}, in the same order.
+     */
+    private int[] getTrainOrder() {
+        if (trainOrderStale) {
+            if (trainOrder.length != sortedTrains.size()) {
+                trainOrder = new int[sortedTrains.size()];
+            }
+            for (int i = 0; i < trainOrder.length; i++) {
+                trainOrder[i] = sortedTrains.get(i).getHandle();
+            }
+            trainOrderStale = false;
+        }
+        return trainOrder;
+    }
+
+    /**
+     * Simulates the given number of minutes, only running full minutes when something can
+     * happen. After a full minute in which no train arrived, boarding at every station is a
+     * no-op until a train arrives or a perishable expires, so the minutes in between only
+     * move trains (in bulk, through the train state store) and repair tracks. Perishable
+     * cargo is aged in bulk at the end of each such run of minutes.
+     *
+     * @param numberOfMinutes Number of minutes to simulate.
+     */
+    private void simulateToNextEvents(int numberOfMinutes) {
+        int remaining = numberOfMinutes;
+        boolean fullMinuteRequired = true;
+
+        while (remaining > 0) {
+            if (fullMinuteRequired) {
+                long arrivalsBefore = trainMovementManager.getArrivalCount();
+                simulate();
+                remaining--;
+                fullMinuteRequired = trainMovementManager.getArrivalCount() != arrivalsBefore;
+                continue;
+            }
+
+            int horizon = Math.min(remaining, minutesUntilNextExpiry() - 1);
+            for (Train train : sortedTrains) {
+                trainMovementManager.loadSegment(train);
+            }
+
+            int[] order = getTrainOrder();
+            int skipped = 0;
+            while (skipped < horizon && !trainStates.isAnyArrivalDue(order, order.length)) {
+                trainStates.advance(order, order.length);
+                repairTracks();
+                minutesSimulated++;
+                skipped++;
+            }
+
+            agePerishableCargo(skipped);
+            remaining -= skipped;
+            fullMinuteRequired = true;
+        }
+    }
+
+    /**
+     * Ages the perishable cargo at every station holding any by one minute, and stops visiting
+     * stations that no longer hold any.
+     */
+    private void updatePerishableCargo() {
+        Iterator<Station> iterator = perishableStations.iterator();
+        while (iterator.hasNext()) {
+            Station station = iterator.next();
+            station.updatePerishableCargo();
+            if (!station.hasPerishableCargo()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of minutes until the next perishable cargo item expires,
+     * i.e. the soonest expiry among every holder of perishables that is still ageing.
+     *
+     * @return minutes until the next expiry, or Integer.MAX_VALUE if there is none.
+     */
+    private int minutesUntilNextExpiry() {
+        int minutes = Integer.MAX_VALUE;
+        for (Station station : perishableStations) {
+            minutes = Math.min(minutes, station.getMinutesUntilNextExpiry());
+        }
+
+        for (Train train : trains.values()) {
+            if (isAgeingPerishableCargo(train)) {
+                minutes = Math.min(minutes, train.getMinutesUntilNextExpiry());
+            }
+        }
+        return minutes;
+    }
+
+    /**
+     * Ages every ageing perishable cargo item by the given number of minutes.
+     * The caller must ensure that no item expires as a result.
+     *
+     * @param minutes Number of minutes to age by.
+     */
+    private void agePerishableCargo(int minutes) {
+        if (minutes == 0)
+            return;
+
+        for (Station station : perishableStations) {
+            station.agePerishableCargo(minutes);
+        }
+
+        for (Train train : trains.values()) {
+            if (isAgeingPerishableCargo(train)) {
+                train.agePerishableCargo(minutes);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the perishable cargo on a train ages each minute, which is the case for
+     * cargo-carrying trains that are at a station.
+     *
+     * @param train The train to check.
+     * @return true if the train's perishable cargo ages.
+     */
+    private boolean isAgeingPerishableCargo(Train train) {
+        return train.canCarryCargo() && stations.containsKey(trainTracker.getTrainLocation(train.getTrainId()));
+    }
+
+    /**
+     * Applies a per-minute action to every train in train ID order, or to independent
+     * groups of trains in parallel if parallel movement is enabled.
+     *
+     * @param sortedTrains Trains sorted by train ID.
+     * @param action       Action to apply to each train.
+     */
+    private void forEachTrain(List<Train> sortedTrains, Consumer<Train> action) {
+        if (parallelMovement) {
+            parallelMovementManager.forEachTrain(sortedTrains, action);
+            return;
+        }
+
+        for (Train train : sortedTrains) {
+            action.accept(train);
+        }
+    }
+
+    /**
+     * Repairs every broken track by one step. Only tracks that are broken are visited.
+     */
+    private void repairTracks() {
+        trackRepairManager.repairTracks();
+    }
+
+    /**
+     * Stores a track and registers it in the adjacency index, replacing any
+     * existing track with the same ID. The track's length and direction are cached here.
+     *
+     * @param track The track to add.
+     */
+    private void addTrack(Track track) {
+        cacheGeometry(track);
+        Track replaced = tracks.put(track.getTrackId(), track);
+        if (replaced != null) {
+            trackIndex.remove(replaced);
+            trackRepairManager.remove(replaced);
+        }
+        trackIndex.add(track);
+    }
+
+    /**
+     * Caches the length and direction of a track from the current positions of its stations.
+     *
+     * @param track The track to update.
+     */
+    private void cacheGeometry(Track track) {
+        track.setGeometry(stations.get(track.getFromStationId()).getPosition(),
+                stations.get(track.getToStationId()).getPosition());
+    }
+
     private boolean isCyclicalRoute(List<String> route) {
         return route.size() >= 3 && route.get(0).equals(route.get(route.size() - 1));
     }
 
-    private boolean isValidRoute(List<String> route, String type) {
+    /**
+     * Checks whether a route can be followed by a train of the given type: it visits at least two
+     * stations, each connected to the next by a track, and only loops if the train can loop.
+     *
+     * @param route Ordered list of station IDs forming the route.
+     * @param type  Type of the train, or null to skip the type's restrictions.
+     * @return true if the route is valid.
+     */
+    public boolean isValidRoute(List<String> route, TrainType type) {
         if (route.size() < 2)
             return false;
 
         if (isCyclicalRoute(route)) {
-            if (type.equals("PassengerTrain") || type.equals("CargoTrain")) {
+            if (type != null && type.isLinear()) {
                 return false;
             }
         }
@@ -366,8 +904,7 @@ public class TrainsController {
             String from = route.get(i);
             String to = route.get(i + 1);
 
-            boolean trackExists = tracks.values().stream().anyMatch(track -> track.connects(from, to));
-            if (!trackExists)
+            if (!trackIndex.connects(from, to))
                 return false;
         }
 
@@ -0,0 +1,17 @@
+package unsw.utils;
+
+/**
+ * Represents the kinds of command that change the state of a simulation, as recorded in the
+ * command journal. Constants are stored by name, so they may be reordered but not renamed.
+ */
+public enum CommandType {
+    CREATE_STATION,
+    CREATE_TRACK,
+    CREATE_BREAKABLE_TRACK,
+    CREATE_TRAIN,
+    CREATE_CARGO,
+    CREATE_PERISHABLE_CARGO,
+    CREATE_PASSENGER,
+    CREATE_MECHANIC,
+    SIMULATE
+}
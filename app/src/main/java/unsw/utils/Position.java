@@ -33,8 +33,7 @@ public class Position {
     }
 
     public Position calculateNewPosition(Position finalPosition, double speed) {
-        double distanceToTravel = Math
-                .sqrt(Math.pow(finalPosition.getX() - x, 2) + Math.pow(finalPosition.getY() - y, 2));
+        double distanceToTravel = distance(finalPosition);
         double newX = x + (finalPosition.getX() - x) * speed / distanceToTravel;
         double newY = y + (finalPosition.getY() - y) * speed / distanceToTravel;
         return new Position(newX, newY);
@@ -50,13 +49,13 @@ public class Position {
      * before or at the end of the tick. Prevents the train overshooting the station.
      */
     public boolean isInBound(Position destination, double speed) {
-        double distance = Math
-                .sqrt(Math.pow(destination.getX() - this.x, 2) + Math.pow(destination.getY() - this.y, 2));
-        return distance <= speed;
+        return distance(destination) <= speed;
     }
 
     public double distance(Position destination) {
-        return Math.sqrt(Math.pow(destination.getX() - this.x, 2) + Math.pow(destination.getY() - this.y, 2));
+        double dx = destination.getX() - this.x;
+        double dy = destination.getY() - this.y;
+        return Math.sqrt(dx * dx + dy * dy);
     }
 
     @Override
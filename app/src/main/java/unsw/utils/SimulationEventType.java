@@ -0,0 +1,26 @@
+package unsw.utils;
+
+/**
+ * Represents the kinds of event recorded in the simulation event log.
+ */
+public enum SimulationEventType {
+    /**
+     * A train passed over a breakable track and wore it down.
+     */
+    DURABILITY_CHANGED,
+
+    /**
+     * A breakable track wore down completely and broke.
+     */
+    TRACK_BROKEN,
+
+    /**
+     * A broken track was repaired by one step.
+     */
+    TRACK_REPAIRING,
+
+    /**
+     * A broken track was fully repaired.
+     */
+    TRACK_REPAIRED
+}
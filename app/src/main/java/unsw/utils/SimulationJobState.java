@@ -0,0 +1,36 @@
+package unsw.utils;
+
+/**
+ * Represents the stages of a simulation run in the background.
+ */
+public enum SimulationJobState {
+    /**
+     * Waiting for earlier jobs to finish.
+     */
+    QUEUED,
+
+    /**
+     * Simulating.
+     */
+    RUNNING,
+
+    /**
+     * Simulated every minute asked for.
+     */
+    COMPLETED,
+
+    /**
+     * Stopped early because it was cancelled.
+     */
+    CANCELLED,
+
+    /**
+     * Stopped early because it ran out of wall-clock time.
+     */
+    TIMED_OUT,
+
+    /**
+     * Stopped early because the simulation threw an exception.
+     */
+    FAILED
+}
@@ -0,0 +1,18 @@
+package unsw.utils;
+
+/**
+ * Represents how the controller advances the simulation when asked to
+ * simulate a number of minutes.
+ */
+public enum SimulationMode {
+    /**
+     * Run every phase of the simulation once per minute.
+     */
+    STEP,
+
+    /**
+     * Run full minutes only when something can happen (arrivals, perishable
+     * expiry), and only advance moving trains and repairs in between.
+     */
+    NEXT_EVENT
+}
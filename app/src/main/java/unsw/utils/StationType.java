@@ -0,0 +1,103 @@
+package unsw.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import unsw.stations.CargoStation;
+import unsw.stations.CentralStation;
+import unsw.stations.DepotStation;
+import unsw.stations.PassengerStation;
+import unsw.stations.Station;
+
+/**
+ * Represents the kinds of station, and what each kind is capable of.
+ * Capabilities are resolved once when a station is created, so the simulation does not
+ * need to compare type names. A new kind of station is added by adding a constant here.
+ */
+public enum StationType {
+    PASSENGER_STATION("PassengerStation", 2, true, false, PassengerStation::new),
+    CARGO_STATION("CargoStation", 4, false, true, CargoStation::new),
+    CENTRAL_STATION("CentralStation", 8, true, true, CentralStation::new),
+    DEPOT_STATION("DepotStation", 8, false, false, DepotStation::new);
+
+    private static final Map<String, StationType> BY_NAME = new HashMap<>();
+
+    static {
+        for (StationType type : values()) {
+            BY_NAME.put(type.name, type);
+        }
+    }
+
+    private final String name;
+    private final int maxTrains;
+    private final boolean handlesPassengers;
+    private final boolean handlesCargo;
+    private final BiFunction<String, Position, Station> factory;
+
+    StationType(String name, int maxTrains, boolean handlesPassengers, boolean handlesCargo,
+            BiFunction<String, Position, Station> factory) {
+        this.name = name;
+        this.maxTrains = maxTrains;
+        this.handlesPassengers = handlesPassengers;
+        this.handlesCargo = handlesCargo;
+        this.factory = factory;
+    }
+
+    /**
+     * Looks up a station type by the name used in the API, e.g. "CentralStation".
+     *
+     * @param name Name of the station type.
+     * @return the station type, or null if there is no type with that name.
+     */
+    public static StationType fromName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Returns the name of the station type used in the API.
+     *
+     * @return type name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of trains a station of this type can hold at once.
+     *
+     * @return maximum number of trains.
+     */
+    public int getMaxTrains() {
+        return maxTrains;
+    }
+
+    /**
+     * Returns whether passengers can start their journey at stations of this type.
+     *
+     * @return true if passengers are handled.
+     */
+    public boolean handlesPassengers() {
+        return handlesPassengers;
+    }
+
+    /**
+     * Returns whether regular cargo can start its journey at stations of this type.
+     *
+     * @return true if cargo is handled.
+     */
+    public boolean handlesCargo() {
+        return handlesCargo;
+    }
+
+    /**
+     * Creates a station of this type.
+     *
+     * @param stationId Unique identifier for the station.
+     * @param position  Position of the station.
+     * @return the new station.
+     */
+    public Station create(String stationId, Position position) {
+        return factory.apply(stationId, position);
+    }
+}
@@ -0,0 +1,118 @@
+package unsw.utils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import unsw.trains.BulletTrain;
+import unsw.trains.CargoTrain;
+import unsw.trains.PassengerTrain;
+import unsw.trains.Train;
+
+/**
+ * Represents the kinds of train, and what each kind is capable of.
+ * Capabilities are resolved once when a train is created, so the simulation does not
+ * need to compare type names. A new kind of train is added by adding a constant here.
+ */
+public enum TrainType {
+    PASSENGER_TRAIN("PassengerTrain", true, false, true, PassengerTrain::new),
+    CARGO_TRAIN("CargoTrain", false, true, true, CargoTrain::new),
+    BULLET_TRAIN("BulletTrain", true, true, false, BulletTrain::new);
+
+    /**
+     * Creates a train of a given type.
+     */
+    @FunctionalInterface
+    public interface Factory {
+        /**
+         * Creates a train.
+         *
+         * @param trainId  Unique identifier for the train.
+         * @param position Starting position of the train.
+         * @param route    List of station IDs defining the route.
+         * @return the new train.
+         */
+        Train create(String trainId, Position position, List<String> route);
+    }
+
+    private static final Map<String, TrainType> BY_NAME = new HashMap<>();
+
+    static {
+        for (TrainType type : values()) {
+            BY_NAME.put(type.name, type);
+        }
+    }
+
+    private final String name;
+    private final boolean carriesPassengers;
+    private final boolean carriesCargo;
+    private final boolean linear;
+    private final Factory factory;
+
+    TrainType(String name, boolean carriesPassengers, boolean carriesCargo, boolean linear, Factory factory) {
+        this.name = name;
+        this.carriesPassengers = carriesPassengers;
+        this.carriesCargo = carriesCargo;
+        this.linear = linear;
+        this.factory = factory;
+    }
+
+    /**
+     * Looks up a train type by the name used in the API, e.g. "BulletTrain".
+     *
+     * @param name Name of the train type.
+     * @return the train type, or null if there is no type with that name.
+     */
+    public static TrainType fromName(String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Returns the name of the train type used in the API.
+     *
+     * @return type name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns whether trains of this type carry passengers.
+     *
+     * @return true if passengers can board.
+     */
+    public boolean carriesPassengers() {
+        return carriesPassengers;
+    }
+
+    /**
+     * Returns whether trains of this type carry cargo, including perishable cargo.
+     *
+     * @return true if cargo can be loaded.
+     */
+    public boolean carriesCargo() {
+        return carriesCargo;
+    }
+
+    /**
+     * Returns whether trains of this type go back and forth along their route,
+     * rather than looping.
+     *
+     * @return true if linear, false if the train loops.
+     */
+    public boolean isLinear() {
+        return linear;
+    }
+
+    /**
+     * Creates a train of this type.
+     *
+     * @param trainId  Unique identifier for the train.
+     * @param position Starting position of the train.
+     * @param route    List of station IDs defining the route.
+     * @return the new train.
+     */
+    public Train create(String trainId, Position position, List<String> route) {
+        return factory.create(trainId, position, route);
+    }
+}
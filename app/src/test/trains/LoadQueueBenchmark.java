@@ -0,0 +1,57 @@
+package trains;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import unsw.loads.Cargo;
+import unsw.loads.LoadQueue;
+
+/**
+ * Compares removing loads from a station holding 100k waiting loads, using the list that
+ * stations used to keep and the LoadQueue they keep now. Run with {@code gradle loadBenchmark}.
+ */
+public class LoadQueueBenchmark {
+    private static final int LOADS = 100_000;
+    private static final int REMOVED = 20_000;
+    private static final int DESTINATIONS = 50;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        List<Cargo> loads = new ArrayList<>();
+        for (int i = 0; i < LOADS; i++) {
+            loads.add(new Cargo("cargo" + i, "s" + (i % DESTINATIONS), i % DESTINATIONS, 1));
+        }
+
+        List<Cargo> toRemove = new ArrayList<>(loads);
+        Collections.shuffle(toRemove, new Random(0));
+        toRemove = toRemove.subList(0, REMOVED);
+
+        measure("ArrayList", ArrayList::new, loads, toRemove);
+        measure("LoadQueue", LoadQueue::new, loads, toRemove);
+    }
+
+    /**
+     * Fills a collection with every load, then times removing loads from it in random order.
+     */
+    private static void measure(String name, Supplier<Collection<Cargo>> create, List<Cargo> loads,
+            List<Cargo> toRemove) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Collection<Cargo> waiting = create.get();
+            waiting.addAll(loads);
+
+            long start = System.nanoTime();
+            for (Cargo cargo : toRemove) {
+                waiting.remove(cargo);
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-10s %d loads: %.1f ms to remove %d, %.1f ns/remove%n", name, LOADS,
+                best / 1e6, REMOVED, (double) best / REMOVED);
+    }
+}
@@ -0,0 +1,63 @@
+package trains;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import unsw.exceptions.InvalidRouteException;
+import unsw.trains.TrainsController;
+import unsw.utils.SimulationMode;
+
+/**
+ * Measures the bytes allocated per simulated minute while every train is travelling along
+ * a long track, for both simulation modes. Run with {@code gradle benchmark}.
+ */
+public class MovementBenchmark {
+    private static final int LINES = 500;
+    private static final int WARMUP_MINUTES = 2000;
+    private static final int MEASURED_MINUTES = 1000;
+
+    public static void main(String[] args) throws InvalidRouteException {
+        for (SimulationMode mode : SimulationMode.values()) {
+            TrainsController controller = createNetwork();
+            controller.setSimulationMode(mode);
+
+            // Warm up so the movement path is compiled before measuring
+            controller.simulate(WARMUP_MINUTES);
+
+            long before = allocatedBytes();
+            long start = System.nanoTime();
+            controller.simulate(MEASURED_MINUTES);
+            long elapsed = System.nanoTime() - start;
+            long allocated = allocatedBytes() - before;
+
+            System.out.printf("%-10s %d trains: %.1f bytes/minute, %.1f us/minute%n", mode, LINES * 3,
+                    (double) allocated / MEASURED_MINUTES, elapsed / 1000.0 / MEASURED_MINUTES);
+        }
+    }
+
+    /**
+     * Creates independent two-station lines, far enough apart that no train arrives while measuring.
+     */
+    private static TrainsController createNetwork() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        for (int i = 0; i < LINES; i++) {
+            String from = "from" + i;
+            String to = "to" + i;
+            controller.createStation(from, "CentralStation", i, 0.0);
+            controller.createStation(to, "CentralStation", i, 100000.0);
+            controller.createTrack("track" + i, from, to);
+
+            List<String> route = List.of(from, to);
+            controller.createTrain("passenger" + i, "PassengerTrain", from, route);
+            controller.createTrain("cargo" + i, "CargoTrain", from, route);
+            controller.createTrain("bullet" + i, "BulletTrain", from, route);
+        }
+        return controller;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -2,18 +2,48 @@ package trains;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
-
+import static trains.TestHelpers.assertListAreEqualIgnoringOrder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
 
+import unsw.events.EventBuffer;
+import unsw.events.SimulationEventLog;
 import unsw.exceptions.InvalidRouteException;
+import unsw.loads.PerishableCargo;
+import unsw.loads.PerishableCargoQueue;
+import unsw.managers.TrackRepairManager;
+import unsw.persistence.Command;
+import unsw.persistence.CommandJournal;
+import unsw.persistence.ImportReport;
+import unsw.persistence.NetworkImporter;
+import unsw.persistence.ReplayEngine;
+import unsw.persistence.SnapshotFile;
 import unsw.response.models.LoadInfoResponse;
+import unsw.response.models.TrainInfoResponse;
+import unsw.tracks.BreakableTrack;
+import unsw.trains.NetworkView;
+import unsw.trains.SimulationJob;
 import unsw.trains.TrainsController;
 import unsw.utils.Position;
+import unsw.utils.SimulationJobState;
+import unsw.utils.SimulationMode;
+import unsw.utils.TrackType;
 
 public class MyTests {
     // Write your tests here
@@ -427,6 +457,370 @@ public class MyTests {
 
     }
 
+    @Test
+    public void testPerishableCargoAddedAfterExpiryStillExpires() {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CargoStation", 0, 0);
+        controller.createStation("s2", "CargoStation", 0, 50);
+
+        controller.createPerishableCargo("s1", "s2", "perishable1", 500, 2);
+        controller.simulate(2);
+        assertEquals(0, controller.getStationInfo("s1").getLoads().size());
+
+        // The station held no perishables for a minute, but new cargo must still age there
+        controller.simulate(1);
+        controller.createPerishableCargo("s1", "s2", "perishable2", 500, 3);
+        controller.simulate(2);
+        assertEquals(1, controller.getStationInfo("s1").getLoads().size());
+        controller.simulate(1);
+        assertEquals(0, controller.getStationInfo("s1").getLoads().size());
+    }
+
+    @Test
+    public void testPerishableCargoQueueCarriesTimeLeftBetweenHolders() {
+        PerishableCargoQueue station = new PerishableCargoQueue();
+        PerishableCargoQueue train = new PerishableCargoQueue();
+        PerishableCargo slow = new PerishableCargo("slow", "s2", 1, 300, 10);
+        PerishableCargo fast = new PerishableCargo("fast", "s2", 1, 200, 3);
+
+        assertTrue(station.add(slow));
+        assertTrue(station.add(fast));
+        assertFalse(station.add(slow));
+        assertEquals(2, station.size());
+
+        // Only the item that expires is removed, with its weight reported once
+        assertEquals(0, station.age(2));
+        assertEquals(200, station.age(1));
+        assertEquals(7, station.getMinutesUntilNextExpiry());
+
+        // The train's clock has already moved on, but the cargo keeps the 7 minutes it had left
+        train.age(50);
+        station.remove(slow);
+        assertTrue(train.add(slow));
+        assertEquals(7, slow.getMinutesTillPerish());
+        assertEquals(7, train.getMinutesUntilNextExpiry());
+        assertEquals(0, station.age(100));
+        assertEquals(0, train.age(6));
+        assertEquals(300, train.age(1));
+        assertTrue(train.isEmpty());
+    }
+
+    @Test
+    public void testSnapshotRestoresTrainsMidSegment() throws IOException, InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CentralStation", 0, 0);
+        controller.createStation("s2", "CentralStation", 0, 20);
+        controller.createStation("s3", "CargoStation", 15, 20);
+        controller.createTrack("t1-2", "s1", "s2", true);
+        controller.createTrack("t2-3", "s2", "s3");
+        controller.createTrain("train1", "BulletTrain", "s1", List.of("s1", "s2", "s3"));
+        controller.createTrain("train2", "CargoTrain", "s3", List.of("s3", "s2"));
+        controller.createPassenger("s1", "s3", "p1");
+        controller.createCargo("s1", "s2", "c1", 800);
+        controller.createPerishableCargo("s3", "s2", "pc1", 300, 40);
+        controller.createPerishableCargo("s2", "s1", "pc2", 100, 12);
+        controller.simulate(3);
+
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try {
+            SnapshotFile.write(controller, file);
+            TrainsController restored = SnapshotFile.read(file);
+            assertEquals(3L, restored.getMinutesSimulated());
+            assertEquals(3, new ReplayEngine(restored, List.of()).getTick());
+
+            for (int minute = 0; minute < 15; minute++) {
+                controller.simulate();
+                restored.simulate();
+                for (String trainId : List.of("train1", "train2")) {
+                    TrainInfoResponse expected = controller.getTrainInfo(trainId);
+                    TrainInfoResponse actual = restored.getTrainInfo(trainId);
+                    assertEquals(expected.getLocation(), actual.getLocation());
+                    assertEquals(expected.getPosition(), actual.getPosition());
+                    assertEquals(expected.getLoads().size(), actual.getLoads().size());
+                }
+                for (String stationId : List.of("s1", "s2", "s3")) {
+                    assertEquals(controller.getStationInfo(stationId).getLoads().size(),
+                            restored.getStationInfo(stationId).getLoads().size());
+                }
+                assertEquals(controller.getTrackInfo("t1-2").getDurability(),
+                        restored.getTrackInfo("t1-2").getDurability());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testJournalRecoversCommandsAfterCheckpoint() throws IOException, InvalidRouteException {
+        List<Command> beforeCheckpoint = List.of(
+                Command.createStation("s1", "CentralStation", 0, 0),
+                Command.createStation("s2", "CentralStation", 0, 20),
+                Command.createTrack("t1-2", "s1", "s2", true),
+                Command.createTrain("train1", "BulletTrain", "s1", List.of("s1", "s2")),
+                Command.createPassenger("s1", "s2", "p1", false),
+                Command.simulate(3));
+        List<Command> afterCheckpoint = List.of(
+                Command.createPerishableCargo("s2", "s1", "pc1", 100, 30),
+                Command.createCargo("s1", "s2", "c1", 400),
+                Command.simulate(4));
+
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            TrainsController expected = new TrainsController();
+            try (CommandJournal journal = CommandJournal.open(directory)) {
+                for (Command command : beforeCheckpoint) {
+                    journal.append(command);
+                    command.applyTo(expected);
+                }
+                journal.checkpoint(expected);
+                for (Command command : afterCheckpoint) {
+                    journal.append(command).join();
+                    command.applyTo(expected);
+                }
+            }
+
+            // A record torn by a crash mid-write is dropped rather than failing recovery
+            try (Stream<Path> files = Files.list(directory)) {
+                Path journalFile = files.filter(file -> file.getFileName().toString().startsWith("journal-"))
+                        .findFirst().orElseThrow();
+                Files.write(journalFile, new byte[] { 0, 0, 0, 42, 1 }, StandardOpenOption.APPEND);
+            }
+
+            TrainsController recovered;
+            try (CommandJournal journal = CommandJournal.open(directory)) {
+                recovered = journal.recover();
+            }
+            assertEquals(expected.getMinutesSimulated(), recovered.getMinutesSimulated());
+            for (int minute = 0; minute < 10; minute++) {
+                TrainInfoResponse expectedTrain = expected.getTrainInfo("train1");
+                TrainInfoResponse actualTrain = recovered.getTrainInfo("train1");
+                assertEquals(expectedTrain.getLocation(), actualTrain.getLocation());
+                assertEquals(expectedTrain.getPosition(), actualTrain.getPosition());
+                assertEquals(expectedTrain.getLoads().size(), actualTrain.getLoads().size());
+                for (String stationId : List.of("s1", "s2")) {
+                    assertEquals(expected.getStationInfo(stationId).getLoads().size(),
+                            recovered.getStationInfo(stationId).getLoads().size());
+                }
+                expected.simulate();
+                recovered.simulate();
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testReplayFastForwardsPartWayThroughSimulate() throws InvalidRouteException {
+        List<Command> commands = List.of(
+                Command.createStation("s1", "CentralStation", 0, 0),
+                Command.createStation("s2", "CentralStation", 0, 20),
+                Command.createTrack("t1-2", "s1", "s2", true),
+                Command.createTrain("train1", "CargoTrain", "s1", List.of("s1", "s2")),
+                Command.createCargo("s1", "s2", "c1", 5000),
+                Command.simulate(10),
+                Command.createPassenger("s2", "s1", "p1", false),
+                Command.simulate(40));
+
+        TrainsController expected = new TrainsController();
+        for (Command command : commands.subList(0, 5)) {
+            command.applyTo(expected);
+        }
+        expected.simulate(7);
+
+        ReplayEngine engine = new ReplayEngine(commands);
+        engine.fastForwardTo(7);
+        assertEquals(7, engine.getTick());
+        assertEquals(5, engine.getCommandIndex());
+        TrainInfoResponse train = engine.getController().getTrainInfo("train1");
+        assertEquals(expected.getTrainInfo("train1").getPosition(), train.getPosition());
+        assertEquals(expected.getTrainInfo("train1").getLoads().size(), train.getLoads().size());
+
+        // The heavy cargo wears the track down until it breaks while being carried
+        assertTrue(engine.runUntil(controller -> controller.getTrackInfo("t1-2").getType() == TrackType.BROKEN, 50));
+        expected.simulate(engine.getTick() - 7);
+        assertEquals(TrackType.BROKEN, expected.getTrackInfo("t1-2").getType());
+        assertEquals(expected.getTrainInfo("train1").getPosition(),
+                engine.getController().getTrainInfo("train1").getPosition());
+
+        engine.fastForwardTo(Integer.MAX_VALUE);
+        assertTrue(engine.isFinished());
+        assertEquals(50, engine.getTick());
+    }
+
+    @Test
+    public void testReplaySkipsRestOfSimulateThatThrew() throws InvalidRouteException {
+        // Both trains leaving b stay in its list, so b is full when train3 gets there
+        List<Command> commands = List.of(
+                Command.createStation("a", "CentralStation", 0, 0),
+                Command.createStation("b", "PassengerStation", 0, 10),
+                Command.createTrack("a-b", "a", "b", false),
+                Command.createTrain("train1", "PassengerTrain", "b", List.of("b", "a")),
+                Command.createTrain("train2", "PassengerTrain", "b", List.of("b", "a")),
+                Command.createTrain("train3", "PassengerTrain", "a", List.of("a", "b")),
+                Command.simulate(20),
+                Command.createPassenger("a", "b", "p1", false),
+                Command.simulate(3));
+
+        TrainsController expected = new TrainsController();
+        for (Command command : commands.subList(0, 6)) {
+            command.applyTo(expected);
+        }
+        assertThrows(IllegalArgumentException.class, () -> expected.simulate(20));
+        long minutesBeforeThrow = expected.getMinutesSimulated();
+        assertTrue(minutesBeforeThrow < 20);
+
+        ReplayEngine engine = new ReplayEngine(commands);
+        engine.fastForwardTo((int) minutesBeforeThrow);
+        assertEquals(8, engine.getCommandIndex());
+        assertEquals(minutesBeforeThrow, (long) engine.getTick());
+
+        // The rest of the stream is applied after the failed simulate
+        commands.get(7).applyTo(expected);
+        expected.simulate(3);
+        engine.fastForwardTo(Integer.MAX_VALUE);
+        assertTrue(engine.isFinished());
+        assertEquals(minutesBeforeThrow + 3, (long) engine.getTick());
+        for (String trainId : List.of("train1", "train2", "train3")) {
+            assertEquals(expected.getTrainInfo(trainId).getPosition(),
+                    engine.getController().getTrainInfo(trainId).getPosition());
+        }
+    }
+
+    @Test
+    public void testNetworkImportSkipsInvalidRecords() throws IOException {
+        TrainsController controller = new TrainsController();
+        NetworkImporter importer = new NetworkImporter(controller);
+
+        ImportReport json = importer.importJson(new StringReader("{"
+                + "\"stations\": ["
+                + "  {\"stationId\": \"s1\", \"type\": \"CentralStation\", \"x\": 0, \"y\": 0},"
+                + "  {\"stationId\": \"s2\", \"type\": \"CargoStation\", \"x\": 0, \"y\": 10},"
+                + "  {\"stationId\": \"s3\", \"type\": \"Airport\", \"x\": 5, \"y\": 5}],"
+                + "\"tracks\": ["
+                + "  {\"trackId\": \"t1-2\", \"fromStationId\": \"s1\", \"toStationId\": \"s2\"},"
+                + "  {\"trackId\": \"t1-3\", \"fromStationId\": \"s1\", \"toStationId\": \"s3\"}],"
+                + "\"trains\": ["
+                + "  {\"trainId\": \"train1\", \"type\": \"CargoTrain\", \"stationId\": \"s1\","
+                + "   \"route\": [\"s1\", \"s2\"]}]}"));
+        assertEquals(2, json.getStationsCreated());
+        assertEquals(1, json.getTracksCreated());
+        assertEquals(1, json.getTrainsCreated());
+        assertEquals(List.of("$.stations[2]: Invalid station type: Airport",
+                "$.tracks[1]: One or both station IDs do not exist!"), json.getErrors());
+
+        ImportReport csv = importer.importCsv(new StringReader(String.join("\n",
+                "# Extends the network above",
+                "station,s3,PassengerStation,10,10",
+                "track,t2-3,s2,s3,UNBROKEN",
+                "track,t3-2,s3,s2",
+                "train,train2,BulletTrain,s1,s1,s2,s3,s1",
+                "train,train3,BulletTrain,s2,s2,s3",
+                "bus,b1,s1,s2")));
+        assertEquals(1, csv.getStationsCreated());
+        assertEquals(1, csv.getTracksCreated());
+        assertEquals(1, csv.getTrainsCreated());
+        assertEquals(List.of("line 4: A track already exists between these stations.",
+                "line 5: Invalid route for train type: BulletTrain", "line 7: Unknown record type: bus"),
+                csv.getErrors());
+        assertEquals(TrackType.UNBROKEN, controller.getTrackInfo("t2-3").getType());
+        assertEquals("s2", controller.getTrainInfo("train3").getLocation());
+        assertListAreEqualIgnoringOrder(List.of("train1", "train3"), controller.listTrainIds());
+    }
+
+    @Test
+    public void testNetworkImportReportsTruncatedJson() throws IOException {
+        TrainsController controller = new TrainsController();
+        NetworkImporter importer = new NetworkImporter(controller);
+
+        ImportReport truncated = importer.importJson(new StringReader("{"
+                + "\"stations\": ["
+                + "  {\"stationId\": \"s1\", \"type\": \"CentralStation\", \"x\": 0, \"y\": 0},"
+                + "  {\"stationId\": \"s2\", \"type\": \"CargoStation\", \"x\": 0, \"y\""));
+        assertEquals(1, truncated.getStationsCreated());
+        assertFalse(truncated.isSuccessful());
+        assertEquals(1, truncated.getErrorCount());
+        assertTrue(truncated.getErrors().get(0).contains("Truncated JSON"));
+        assertEquals(List.of("s1"), controller.listStationIds());
+
+        ImportReport empty = importer.importJson(new StringReader(""));
+        assertEquals(0, empty.getStationsCreated());
+        assertEquals(1, empty.getErrorCount());
+    }
+
+    @Test
+    public void testNetworkViewIsUnaffectedByLaterChanges() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CentralStation", 0, 0);
+        controller.createStation("s2", "CentralStation", 0, 20);
+        controller.createTrack("t1-2", "s1", "s2", true);
+        controller.createTrain("train1", "PassengerTrain", "s1", List.of("s1", "s2"));
+        controller.createPassenger("s1", "s2", "p1");
+
+        NetworkView view = NetworkView.capture(controller, 5);
+        TrainInfoResponse before = controller.getTrainInfo("train1");
+        controller.simulate(2);
+        controller.createStation("s3", "CargoStation", 10, 10);
+
+        assertEquals(5L, view.getVersion());
+        assertListAreEqualIgnoringOrder(List.of("s1", "s2"), view.getStationIds());
+        assertEquals(before, view.getTrains().get(0));
+        assertEquals(List.of("t1-2"), view.getTrackIds());
+        assertEquals(10, view.getTracks().get(0).getDurability());
+        assertThrows(UnsupportedOperationException.class, () -> view.getTrains().clear());
+
+        NetworkView later = NetworkView.capture(controller, 6);
+        assertEquals(3, later.getStations().size());
+        assertEquals(controller.getTrainInfo("train1"), later.getTrains().get(0));
+    }
+
+    @Test
+    public void testSimulationJobStopsBetweenSlices() throws InvalidRouteException {
+        TrainsController expected = new TrainsController();
+        TrainsController actual = new TrainsController();
+        for (TrainsController controller : List.of(expected, actual)) {
+            controller.createStation("s1", "CentralStation", 0, 0);
+            controller.createStation("s2", "CentralStation", 0, 30);
+            controller.createTrack("t1-2", "s1", "s2", true);
+            controller.createTrain("train1", "CargoTrain", "s1", List.of("s1", "s2"));
+            controller.createCargo("s1", "s2", "c1", 800);
+        }
+
+        SimulationJob completed = new SimulationJob("job1", 100, 0);
+        completed.run(actual::simulate);
+        expected.simulate(100);
+        assertEquals(SimulationJobState.COMPLETED, completed.getState());
+        assertEquals(100, completed.getMinutesSimulated());
+        assertEquals(expected.getTrainInfo("train1").getPosition(), actual.getTrainInfo("train1").getPosition());
+        assertEquals(expected.getTrackInfo("t1-2").getDurability(), actual.getTrackInfo("t1-2").getDurability());
+
+        SimulationJob cancelled = new SimulationJob("job2", 1000, 0);
+        cancelled.run(minutes -> {
+            actual.simulate(minutes);
+            if (cancelled.getMinutesSimulated() + minutes >= 7) {
+                cancelled.cancel();
+            }
+        });
+        assertEquals(SimulationJobState.CANCELLED, cancelled.getState());
+        assertTrue(cancelled.getMinutesSimulated() >= 7 && cancelled.getMinutesSimulated() < 1000);
+        assertFalse(cancelled.cancel());
+
+        SimulationJob timedOut = new SimulationJob("job3", 1000, 1);
+        timedOut.run(minutes -> {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertEquals(SimulationJobState.TIMED_OUT, timedOut.getState());
+        assertEquals(1, timedOut.getMinutesSimulated());
+    }
+
     @Test
     public void testBreakableTrackCreation() {
         TrainsController controller = new TrainsController();
@@ -467,6 +861,99 @@ public class MyTests {
 
     }
 
+    @Test
+    public void testBreakableTrackEventsAreLoggedInOrder() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SimulationEventLog log = new SimulationEventLog(new PrintStream(bytes, true, StandardCharsets.UTF_8), 4);
+        BreakableTrack track = new BreakableTrack("t1", "s1", "s2");
+        track.setEventLog(log);
+
+        // More events than the ring holds, so writers have to wait for the sink
+        for (int i = 0; i < 5; i++) {
+            track.decreaseDurability(1000);
+        }
+        for (int i = 0; i < 11; i++) {
+            track.repair();
+        }
+        log.close();
+
+        List<String> lines = bytes.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(17, lines.size());
+        assertEquals("Reducing track durability by: 2, new durability: 8", lines.get(0));
+        assertEquals("Track t1 is now BROKEN.", lines.get(5));
+        assertEquals("Repairing track t1, durability now: 1", lines.get(6));
+        assertEquals("Track t1 is fully repaired.", lines.get(16));
+    }
+
+    @Test
+    public void testTrackRepairManagerDropsRepairedAndReplacedTracks() {
+        SimulationEventLog log = new SimulationEventLog(new PrintStream(new ByteArrayOutputStream(), true,
+                StandardCharsets.UTF_8));
+        BreakableTrack repaired = new BreakableTrack("tA", "s1", "s2");
+        BreakableTrack replaced = new BreakableTrack("tB", "s3", "s4");
+        repaired.setEventLog(log);
+        replaced.setEventLog(log);
+        repaired.restoreState(0, true, false);
+        replaced.restoreState(0, true, false);
+
+        TrackRepairManager manager = new TrackRepairManager();
+        manager.trackBroken(repaired);
+        manager.trackBroken(replaced);
+        assertEquals(2, manager.getBrokenTrackCount());
+
+        // A different track with the same ID does not forget the one being repaired
+        manager.remove(new BreakableTrack("tB", "s3", "s4"));
+        assertEquals(2, manager.getBrokenTrackCount());
+        manager.remove(replaced);
+        assertEquals(1, manager.getBrokenTrackCount());
+
+        // One minute before repair starts, then one point of durability a minute
+        for (int i = 0; i < 10; i++) {
+            manager.repairTracks();
+        }
+        assertEquals(1, manager.getBrokenTrackCount());
+        manager.repairTracks();
+        assertEquals(0, manager.getBrokenTrackCount());
+        assertFalse(repaired.isBroken());
+        assertEquals(10, repaired.getDurability());
+        assertEquals(0, replaced.getDurability());
+        log.close();
+    }
+
+    @Test
+    public void testBufferedEventsArePublishedInTrainIdOrder() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        SimulationEventLog log = new SimulationEventLog(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        BreakableTrack trackA = new BreakableTrack("tA", "s1", "s2");
+        BreakableTrack trackB = new BreakableTrack("tB", "s3", "s4");
+        trackA.setEventLog(log);
+        trackB.setEventLog(log);
+
+        // Two groups, as if train1 and train3 were moved on one thread and train2 on another
+        EventBuffer first = new EventBuffer();
+        EventBuffer second = new EventBuffer();
+        first.activate();
+        first.startTrain("train1");
+        trackA.decreaseDurability(0);
+        first.startTrain("train3");
+        trackA.decreaseDurability(2000);
+        EventBuffer.deactivate();
+        second.activate();
+        second.startTrain("train2");
+        trackB.decreaseDurability(1000);
+        trackB.decreaseDurability(1000);
+        EventBuffer.deactivate();
+
+        EventBuffer.publishInOrder(List.of(second, first));
+        log.close();
+
+        assertEquals(List.of("Reducing track durability by: 1, new durability: 9",
+                "Reducing track durability by: 2, new durability: 8",
+                "Reducing track durability by: 2, new durability: 6",
+                "Reducing track durability by: 3, new durability: 6"),
+                bytes.toString(StandardCharsets.UTF_8).lines().toList());
+    }
+
     @Test
     public void testBreakableTrackBecomesBroken() {
         TrainsController controller = new TrainsController();
@@ -567,4 +1054,235 @@ public class MyTests {
 
     }
 
+    @Test
+    public void testDiagonalTrackArrivesAfterWholeMinutes() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "PassengerStation", 0.0, 0.0);
+        controller.createStation("s2", "PassengerStation", 6.0, 8.0);
+        controller.createTrack("t1", "s1", "s2");
+        controller.createTrain("train1", "PassengerTrain", "s1", List.of("s1", "s2"));
+
+        // The track is 10 long, so at speed 2 the train arrives after exactly five minutes
+        controller.simulate(4);
+        assertEquals("s1", controller.getTrainInfo("train1").getLocation());
+        assertEquals(new Position(4.8, 6.4), controller.getTrainInfo("train1").getPosition());
+
+        controller.simulate();
+        assertEquals("s2", controller.getTrainInfo("train1").getLocation());
+        assertEquals(new Position(6.0, 8.0), controller.getTrainInfo("train1").getPosition());
+    }
+
+    @Test
+    public void testTrainFollowsRouteThatRevisitsStation() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "PassengerStation", 0.0, 0.0);
+        controller.createStation("s2", "PassengerStation", 0.0, 2.0);
+        controller.createStation("s3", "PassengerStation", 0.0, 4.0);
+        controller.createTrack("t1", "s1", "s2");
+        controller.createTrack("t2", "s2", "s3");
+        controller.createTrain("train1", "PassengerTrain", "s1", List.of("s1", "s2", "s3", "s2"));
+
+        // The train keeps its place in the route, so it retraces the route back from the final s2
+        List<String> expected = List.of("s2", "s3", "s2", "s3", "s2", "s1", "s2");
+        for (String stationId : expected) {
+            controller.simulate();
+            assertEquals(stationId, controller.getTrainInfo("train1").getLocation());
+        }
+    }
+
+    @Test
+    public void testBulkCargoBoardingSlowsTrain() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CentralStation", 0.0, 0.0);
+        controller.createStation("s2", "CentralStation", 0.0, 100.0);
+        controller.createTrack("t1", "s1", "s2");
+        controller.createTrain("train1", "CargoTrain", "s1", List.of("s1", "s2"));
+
+        for (int i = 0; i < 2000; i++) {
+            controller.createCargo("s1", "s2", "cargo" + i, 2);
+        }
+
+        // 4000kg of cargo boards, which slows the train to its minimum speed of 1
+        controller.simulate();
+        assertEquals(2000, controller.getTrainInfo("train1").getLoads().size());
+        assertTrue(controller.getStationInfo("s1").getLoads().isEmpty());
+        assertEquals(new Position(0.0, 1.0), controller.getTrainInfo("train1").getPosition());
+
+        controller.simulate(99);
+        assertEquals("s2", controller.getTrainInfo("train1").getLocation());
+        assertEquals(2000, controller.getStationInfo("s2").getLoads().size());
+    }
+
+    @Test
+    public void testCargoOnlyBoardsForStationsOnRoute() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CentralStation", 0.0, 0.0);
+        controller.createStation("s2", "CentralStation", 0.0, 3.0);
+        controller.createStation("s3", "CentralStation", 3.0, 0.0);
+        controller.createTrack("t1", "s1", "s2");
+        controller.createTrack("t2", "s1", "s3");
+        controller.createTrain("train1", "CargoTrain", "s1", List.of("s1", "s2"));
+
+        controller.createCargo("s1", "s3", "offRoute", 100);
+        controller.createCargo("s1", "s2", "onRoute", 100);
+        controller.createPerishableCargo("s1", "s3", "offRoutePerishable", 100, 50);
+
+        controller.simulate();
+        List<LoadInfoResponse> trainLoads = controller.getTrainInfo("train1").getLoads();
+        assertEquals(1, trainLoads.size());
+        assertEquals("onRoute", trainLoads.get(0).getLoadId());
+        assertEquals(2, controller.getStationInfo("s1").getLoads().size());
+
+        controller.simulate();
+        assertEquals("s2", controller.getTrainInfo("train1").getLocation());
+        assertEquals("onRoute", controller.getStationInfo("s2").getLoads().get(0).getLoadId());
+    }
+
+    @Test
+    public void testPassengersThatDoNotFitKeepWaiting() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CentralStation", 0.0, 0.0);
+        controller.createStation("s2", "CentralStation", 0.0, 10.0);
+        controller.createTrack("t1", "s1", "s2");
+        controller.createTrain("train1", "PassengerTrain", "s1", List.of("s1", "s2"));
+
+        for (int i = 0; i < 60; i++) {
+            controller.createPassenger("s1", "s2", "passenger" + i);
+        }
+
+        // A passenger train holds 50 passengers, so the last 10 stay at the station
+        controller.simulate();
+        assertEquals(50, controller.getTrainInfo("train1").getLoads().size());
+        assertEquals(10, controller.getStationInfo("s1").getLoads().size());
+        assertEquals("passenger50", controller.getStationInfo("s1").getLoads().get(0).getLoadId());
+    }
+
+    @Test
+    public void testPerishableCargoEtaFollowsRoute() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CargoStation", 0.0, 0.0);
+        controller.createStation("s2", "CargoStation", 0.0, 30.0);
+        controller.createStation("s3", "CargoStation", 1.0, 0.0);
+        controller.createTrack("t1", "s1", "s2");
+        controller.createTrack("t2", "s2", "s3");
+        controller.createTrain("train1", "CargoTrain", "s1", List.of("s1", "s2", "s3"));
+
+        // s3 is close to s1 in a straight line, but the train has to go through s2 to get there
+        controller.createPerishableCargo("s1", "s3", "spoilsOnTheWay", 100, 15);
+        controller.createPerishableCargo("s1", "s3", "lastsTheTrip", 100, 30);
+
+        controller.simulate();
+        List<LoadInfoResponse> trainLoads = controller.getTrainInfo("train1").getLoads();
+        assertEquals(1, trainLoads.size());
+        assertEquals("lastsTheTrip", trainLoads.get(0).getLoadId());
+    }
+
+    @Test
+    public void testNextEventModeMatchesStepping() throws InvalidRouteException {
+        TrainsController stepped = createMixedNetwork();
+        TrainsController eventDriven = createMixedNetwork();
+        eventDriven.setSimulationMode(SimulationMode.NEXT_EVENT);
+
+        for (int length : List.of(1, 7, 40, 13, 150)) {
+            stepped.simulate(length);
+            eventDriven.simulate(length);
+            assertSameState(stepped, eventDriven);
+        }
+    }
+
+    @Test
+    public void testParallelMovementMatchesSequential() throws InvalidRouteException {
+        TrainsController sequential = createMixedNetwork();
+        TrainsController parallel = createMixedNetwork();
+        parallel.setParallelMovement(true);
+
+        for (TrainsController controller : List.of(sequential, parallel)) {
+            for (int i = 0; i < 4; i++) {
+                String from = "line" + i + "a";
+                String to = "line" + i + "b";
+                controller.createStation(from, "CentralStation", 100.0 + i * 20, 0.0);
+                controller.createStation(to, "CentralStation", 100.0 + i * 20, 25.0);
+                controller.createTrack("line" + i, from, to, true);
+                controller.createTrain("line" + i + "train", "BulletTrain", from, List.of(from, to));
+                controller.createCargo(from, to, "line" + i + "cargo", 1000 * i);
+            }
+        }
+
+        for (int length : List.of(3, 20, 60)) {
+            sequential.simulate(length);
+            parallel.simulate(length);
+            assertSameState(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void testParallelMovementStopsAfterTrainArrivingAtFullStation() throws InvalidRouteException {
+        TrainsController sequential = new TrainsController();
+        TrainsController parallel = new TrainsController();
+        parallel.setParallelMovement(true);
+
+        for (TrainsController controller : List.of(sequential, parallel)) {
+            // a1 and a2 stay in b's list after leaving it, so b is full when a3 gets there
+            controller.createStation("a", "CentralStation", 0.0, 0.0);
+            controller.createStation("b", "PassengerStation", 0.0, 10.0);
+            controller.createTrack("a-b", "a", "b");
+            controller.createTrain("a1", "PassengerTrain", "b", List.of("b", "a"));
+            controller.createTrain("a2", "PassengerTrain", "b", List.of("b", "a"));
+            controller.createTrain("a3", "PassengerTrain", "a", List.of("a", "b"));
+
+            // An independent line whose train comes after a3 in train ID order
+            controller.createStation("y", "CentralStation", 50.0, 0.0);
+            controller.createStation("z", "CentralStation", 50.0, 100.0);
+            controller.createTrack("y-z", "y", "z");
+            controller.createTrain("z1", "PassengerTrain", "y", List.of("y", "z"));
+
+            assertThrows(IllegalArgumentException.class, () -> controller.simulate(20));
+        }
+        assertSameState(sequential, parallel);
+    }
+
+    private TrainsController createMixedNetwork() throws InvalidRouteException {
+        TrainsController controller = new TrainsController();
+        controller.createStation("s1", "CentralStation", 0.0, 0.0);
+        controller.createStation("s2", "CentralStation", 30.0, 5.0);
+        controller.createStation("s3", "CargoStation", 45.0, 40.0);
+        controller.createStation("s4", "DepotStation", 5.0, 35.0);
+
+        controller.createTrack("t1-2", "s1", "s2");
+        controller.createTrack("t2-3", "s2", "s3", true);
+        controller.createTrack("t3-4", "s3", "s4");
+        controller.createTrack("t4-1", "s4", "s1", true);
+
+        controller.createTrain("p1", "PassengerTrain", "s1", List.of("s1", "s2", "s3"));
+        controller.createTrain("c1", "CargoTrain", "s2", List.of("s2", "s3", "s4"));
+        controller.createTrain("b1", "BulletTrain", "s1", List.of("s1", "s2", "s3", "s4", "s1"));
+
+        controller.createPassenger("s1", "s3", "passenger1");
+        controller.createPassenger("s2", "s1", "passenger2");
+        controller.createCargo("s2", "s4", "cargo1", 1500);
+        controller.createCargo("s1", "s3", "cargo2", 2500);
+        controller.createPerishableCargo("s2", "s3", "perishable1", 500, 30);
+        controller.createPerishableCargo("s1", "s4", "perishable2", 800, 12);
+        return controller;
+    }
+
+    private void assertSameState(TrainsController expected, TrainsController actual) {
+        for (String trainId : expected.listTrainIds()) {
+            TrainInfoResponse expectedInfo = expected.getTrainInfo(trainId);
+            TrainInfoResponse actualInfo = actual.getTrainInfo(trainId);
+            assertEquals(expectedInfo.getLocation(), actualInfo.getLocation());
+            assertEquals(expectedInfo.getPosition().getX(), actualInfo.getPosition().getX());
+            assertEquals(expectedInfo.getPosition().getY(), actualInfo.getPosition().getY());
+            assertListAreEqualIgnoringOrder(expectedInfo.getLoads(), actualInfo.getLoads());
+        }
+
+        for (String stationId : expected.listStationIds()) {
+            assertListAreEqualIgnoringOrder(expected.getStationInfo(stationId).getLoads(),
+                    actual.getStationInfo(stationId).getLoads());
+        }
+
+        for (String trackId : expected.listTrackIds()) {
+            assertEquals(expected.getTrackInfo(trackId), actual.getTrackInfo(trackId));
+        }
+    }
 }